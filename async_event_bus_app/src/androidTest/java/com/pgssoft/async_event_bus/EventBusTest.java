@@ -5,19 +5,25 @@ import android.support.annotation.NonNull;
 import android.test.InstrumentationTestCase;
 
 import com.pgssoft.async_event_bus.mock.Reference;
+import com.pgssoft.async_event_bus.mock.TestConflatableEvent;
 import com.pgssoft.async_event_bus.mock.TestEvent1;
 import com.pgssoft.async_event_bus.mock.TestEvent2;
 import com.pgssoft.async_event_bus.mock.TestEvent3;
+import com.pgssoft.async_event_bus.mock.TestIndexedTarget;
 import com.pgssoft.async_event_bus.mock.TestInterfaceEvent1;
+import com.pgssoft.async_event_bus.mock.TestSubscriberIndex;
 import com.pgssoft.async_event_bus.mock.TestTarget1;
 import com.pgssoft.async_event_bus.mock.TestTarget2;
+import com.pgssoft.async_event_bus.mock.TestTarget3;
 
 import java.lang.ref.WeakReference;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -52,70 +58,104 @@ public class EventBusTest extends InstrumentationTestCase {
         subscribers = found.get(TestEvent1.class);
         assertEquals(1, subscribers.size());
         assertSame(testTarget1, subscribers.iterator().next().mTarget.get());
-        assertEquals("onTestEvent1", subscribers.iterator().next().mMethod.getName());
+        assertEquals("onTestEvent1", subscribers.iterator().next().mMethodDesc.name);
 
         //TestEvent2
         assertTrue(found.containsKey(TestEvent2.class));
         subscribers = found.get(TestEvent2.class);
         assertEquals(1, subscribers.size());
         assertSame(testTarget1, subscribers.iterator().next().mTarget.get());
-        assertEquals("onTestEvent2", subscribers.iterator().next().mMethod.getName());
+        assertEquals("onTestEvent2", subscribers.iterator().next().mMethodDesc.name);
 
         //TestEvent3
         assertTrue(found.containsKey(TestEvent3.class));
         subscribers = found.get(TestEvent3.class);
         assertEquals(1, subscribers.size());
         assertSame(testTarget1, subscribers.iterator().next().mTarget.get());
-        assertEquals("onTestEvent3", subscribers.iterator().next().mMethod.getName());
+        assertEquals("onTestEvent3", subscribers.iterator().next().mMethodDesc.name);
 
         //TestInterfaceEvent1
         assertTrue(found.containsKey(TestInterfaceEvent1.class));
         subscribers = found.get(TestInterfaceEvent1.class);
         assertEquals(1, subscribers.size());
         assertSame(testTarget1, subscribers.iterator().next().mTarget.get());
-        assertEquals("onTestInterfaceEvent1", subscribers.iterator().next().mMethod.getName());
+        assertEquals("onTestInterfaceEvent1", subscribers.iterator().next().mMethodDesc.name);
 
         //List returned from findAllSubscribers() MUST not be affected by sub-sequent changes to Bus.
     }
 
+    public void testFindAllSubscribersUsesIndex() throws Exception {
+        TestSubscriberIndex index = new TestSubscriberIndex();
+        EventBus.addIndex(index);
+        try {
+            TestIndexedTarget target = new TestIndexedTarget();
+
+            //indexed class, subscribers should use invoker from the index
+            Map<Class<?>, Set<Subscriber>> found = EventBus.findAllSubscribers(target);
+            assertEquals(1, found.size());
+            Set<Subscriber> subscribers = found.get(TestEvent1.class);
+            assertEquals(1, subscribers.size());
+            Subscriber subscriber = subscribers.iterator().next();
+            assertSame(index.invoker, subscriber.mInvoker);
+            assertEquals(EventBus.DeliveryThread.DISPATCHER, subscriber.mThread);
+            //method is resolved lazily, but it should be resolved correctly
+            assertEquals(TestIndexedTarget.class.getMethod("onTestEvent1", TestEvent1.class),
+                    subscriber.mMethodDesc.getMethod());
+
+            //delivery should go through the index invoker
+            EventBus eventBus = new EventBus();
+            eventBus.register(target);
+            TestEvent1 testEvent1 = new TestEvent1();
+            eventBus.send(testEvent1);
+            assertSame(testEvent1, target.lastReceivedEvent1);
+            assertEquals(1, index.invocations);
+
+            //not indexed class should still be scanned
+            found = EventBus.findAllSubscribers(new TestTarget1());
+            assertEquals(4, found.size());
+        } finally {
+            EventBus.mSubscriberIndexes.remove(index);
+        }
+    }
+
     public void testRegisterUnregisterAndGetSubscribersForEventType() throws Exception {
 
         EventBus eventBus = new EventBus();
         TestTarget1 testTarget1 = new TestTarget1();
         TestTarget1 testTarget2 = new TestTarget1();
-        Set<Subscriber> found;
+        Subscriber[] found;
 
 
         eventBus.register(testTarget1);
 
 
         found = eventBus.getSubscribersForEventType(TestEvent1.class);
-        assertEquals(1, found.size());
+        assertEquals(1, found.length);
 
         found = eventBus.getSubscribersForEventType(TestEvent2.class);
-        assertEquals(1, found.size());
+        assertEquals(1, found.length);
 
         found = eventBus.getSubscribersForEventType(TestEvent3.class);
-        assertEquals(1, found.size());
+        assertEquals(1, found.length);
 
         found = eventBus.getSubscribersForEventType(TestInterfaceEvent1.class);
-        assertEquals(1, found.size());
+        assertEquals(1, found.length);
 
 
         eventBus.unregister(testTarget1);
 
 
         found = eventBus.getSubscribersForEventType(TestEvent1.class);
-        assertEquals(0, found.size());
+        assertEquals(0, found.length);
 
         found = eventBus.getSubscribersForEventType(TestEvent2.class);
-        assertEquals(0, found.size());
+        assertEquals(0, found.length);
 
         found = eventBus.getSubscribersForEventType(TestEvent3.class);
-        assertEquals(0, found.size());
+        assertEquals(0, found.length);
 
         found = eventBus.getSubscribersForEventType(TestInterfaceEvent1.class);
-        assertEquals(0, found.size());
+        assertEquals(0, found.length);
 
 
         eventBus.register(testTarget1);
@@ -123,16 +163,42 @@ public class EventBusTest extends InstrumentationTestCase {
 
 
         found = eventBus.getSubscribersForEventType(TestEvent1.class);
-        assertEquals(2, found.size());
+        assertEquals(2, found.length);
 
         found = eventBus.getSubscribersForEventType(TestEvent2.class);
-        assertEquals(2, found.size());
+        assertEquals(2, found.length);
 
         found = eventBus.getSubscribersForEventType(TestEvent3.class);
-        assertEquals(2, found.size());
+        assertEquals(2, found.length);
 
         found = eventBus.getSubscribersForEventType(TestInterfaceEvent1.class);
-        assertEquals(2, found.size());
+        assertEquals(2, found.length);
+    }
+
+    public void testRoutes() throws Exception {
+        EventBus eventBus = new EventBus();
+        TestTarget1 testTarget1 = new TestTarget1();
+        TestTarget1 testTarget2 = new TestTarget1();
+        eventBus.register(testTarget1);
+
+        //TestEvent3 extends TestEvent1, so route should have both onTestEvent1 and onTestEvent3
+        Subscriber[] route = eventBus.getSubscribersForEventClass(TestEvent3.class);
+        assertEquals(2, route.length);
+        //route is computed once
+        assertSame(route, eventBus.getSubscribersForEventClass(TestEvent3.class));
+        //nobody subscribes Object, route should be computed without registering empty sets
+        assertEquals(0, eventBus.getSubscribersForEventClass(Object.class).length);
+        assertFalse(eventBus.mCurrentlyRegisteredSubscribersByEventType.containsKey(Object.class));
+
+        //register should invalidate routes
+        eventBus.register(testTarget2);
+        assertEquals(4, eventBus.getSubscribersForEventClass(TestEvent3.class).length);
+
+        //so should unregister
+        eventBus.unregister(testTarget1);
+        eventBus.unregister(testTarget2);
+        assertEquals(0, eventBus.getSubscribersForEventClass(TestEvent3.class).length);
+        assertTrue(eventBus.mCurrentlyRegisteredSubscribersByEventType.isEmpty());
     }
 
     public void testDelivery() throws Exception {
@@ -401,4 +467,206 @@ public class EventBusTest extends InstrumentationTestCase {
     }
 
 
+    public void testBatchDeliveryInSequence() throws Exception {
+        final int COUNT = 100 * 100;
+        deadEvent = null;
+        EventBus eventBus = new EventBus();
+        TestTarget2 testTarget = new TestTarget2();
+
+        List<Object> sequence = new ArrayList<Object>();
+        for (int i = 0; i < COUNT; i++)
+            sequence.add(new TestEvent1());
+        //nobody subscribes EventBusTest in UI thread, so it will be the dead event
+        Object unexpected = new Object();
+        sequence.add(unexpected);
+
+        eventBus.register(testTarget);
+        eventBus.register(this); //for DeadEvent
+
+        //post whole sequence at once
+        eventBus.postAll(sequence);
+
+        //wait a bit for delivery
+        long timeLimit = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while ((testTarget.eventsDispatcher.size() < COUNT || testTarget.eventsUI.size() < COUNT)
+                && timeLimit > System.currentTimeMillis()) {
+            Thread.sleep(100);
+        }
+
+        //check
+        assertEquals(COUNT, testTarget.eventsDispatcher.size());
+        for (int i = 0; i < COUNT; i++)
+            assertSame(sequence.get(i), testTarget.eventsDispatcher.get(i));
+
+        assertEquals(COUNT, testTarget.eventsUI.size());
+        for (int i = 0; i < COUNT; i++)
+            assertSame(sequence.get(i), testTarget.eventsUI.get(i));
+
+        assertNotNull(deadEvent);
+        assertSame(unexpected, deadEvent.event);
+
+        //null events are rejected in caller thread
+        try {
+            eventBus.postAll(Arrays.asList(new TestEvent1(), null));
+            fail("Should have throw");
+        } catch (NullPointerException ignored) {
+        }
+    }
+
+    public void testConflation() throws Exception {
+        //executor that runs nothing until asked, so all deliveries are pending
+        final List<Runnable> pending = new ArrayList<Runnable>();
+        EventBus eventBus = new EventBus("test", new Executor() {
+            @Override
+            public void execute(@NonNull Runnable command) {
+                pending.add(command);
+            }
+        });
+        TestTarget3 testTarget = new TestTarget3();
+        eventBus.register(testTarget);
+
+        //case 1: @Subscribe(conflate = true), conflated by the event class
+        TestEvent1 first = new TestEvent1();
+        TestEvent1 last = new TestEvent1();
+        eventBus.send(first);
+        eventBus.send(new TestEvent1());
+        eventBus.send(last);
+        assertEquals(1, pending.size());
+        pending.remove(0).run();
+        assertEquals(1, testTarget.eventsConflated.size());
+        assertSame(last, testTarget.eventsConflated.get(0));
+
+        //after delivery next event should be scheduled again
+        eventBus.send(first);
+        assertEquals(1, pending.size());
+        pending.remove(0).run();
+        assertSame(first, testTarget.eventsConflated.get(1));
+
+        //case 2: ConflatableEvent, conflated by the key
+        TestConflatableEvent a1 = new TestConflatableEvent("a");
+        TestConflatableEvent b1 = new TestConflatableEvent("b");
+        TestConflatableEvent a2 = new TestConflatableEvent("a");
+        eventBus.send(a1);
+        eventBus.send(b1);
+        eventBus.send(a2);
+        assertEquals(2, pending.size());
+        pending.remove(0).run();
+        pending.remove(0).run();
+        assertEquals(2, testTarget.eventsConflatable.size());
+        assertSame(a2, testTarget.eventsConflatable.get(0));
+        assertSame(b1, testTarget.eventsConflatable.get(1));
+
+        //case 3: batch, conflated the same way
+        eventBus.sendAll(Arrays.asList(first, new TestEvent1(), last));
+        assertEquals(1, pending.size());
+        pending.remove(0).run();
+        assertEquals(3, testTarget.eventsConflated.size());
+        assertSame(last, testTarget.eventsConflated.get(2));
+    }
+
+    public void testStickyEvents() throws Exception {
+        deadEvent = null;
+        EventBus eventBus = new EventBus();
+        eventBus.register(this); //for DeadEvent
+        TestEvent2 testEvent2 = new TestEvent2();
+        TestEvent3 testEvent3 = new TestEvent3();
+
+        //nobody subscribes yet, so posted sticky event becomes DeadEvent
+        eventBus.postSticky(testEvent3);
+        eventBus.postSticky(testEvent2);
+        assertSame(testEvent3, eventBus.getSticky(TestEvent3.class));
+        assertSame(testEvent2, eventBus.getSticky(TestEvent2.class));
+        assertNull(eventBus.getSticky(TestEvent1.class));
+
+        //target registered later should receive sticky events, for all subscribers that can handle them
+        TestTarget1 testTarget1 = new TestTarget1();
+        eventBus.register(testTarget1);
+
+        long timeLimit = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while ((testTarget1.lastReceivedEvent1 == null || testTarget1.lastReceivedEvent3 == null
+                || testTarget1.lastReceivedEvent2 == null || testTarget1.lastReceivedInterfaceEvent1 == null)
+                && timeLimit > System.currentTimeMillis()) {
+            Thread.sleep(100);
+        }
+        //TestEvent3 extends TestEvent1
+        assertSame(testEvent3, testTarget1.lastReceivedEvent1);
+        assertSame(testEvent3, testTarget1.lastReceivedEvent3);
+        //TestEvent2 implements TestInterfaceEvent1
+        assertSame(testEvent2, testTarget1.lastReceivedEvent2);
+        assertSame(testEvent2, testTarget1.lastReceivedInterfaceEvent1);
+
+        //removed sticky event should not be replayed
+        assertSame(testEvent3, eventBus.removeSticky(TestEvent3.class));
+        assertNull(eventBus.getSticky(TestEvent3.class));
+        eventBus.removeAllStickyEvents();
+        assertNull(eventBus.getSticky(TestEvent2.class));
+
+        TestTarget1 testTarget2 = new TestTarget1();
+        eventBus.register(testTarget2);
+        //replay would be posted to the dispatcher thread, so post something after it, and wait for it
+        deadEvent = null;
+        Object marker = new Object();
+        eventBus.post(marker);
+        timeLimit = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (deadEvent == null && timeLimit > System.currentTimeMillis()) {
+            Thread.sleep(100);
+        }
+        assertSame(marker, deadEvent.event);
+        assertNull(testTarget2.lastReceivedEvent1);
+        assertNull(testTarget2.lastReceivedEvent2);
+    }
+
+    public void testBoundedDelivery() throws Exception {
+        deadEvent = null;
+        //executor that runs nothing until asked, so all deliveries are pending
+        final List<Runnable> pending = new ArrayList<Runnable>();
+        EventBus eventBus = new EventBus("test", new Executor() {
+            @Override
+            public void execute(@NonNull Runnable command) {
+                pending.add(command);
+            }
+        });
+        TestTarget3 testTarget = new TestTarget3();
+        eventBus.register(testTarget);
+        eventBus.register(this); //for DeadEvent
+
+        //case 1: TestEvent2 goes to DROP_NEWEST and DROP_OLDEST subscribers, both with capacity 2
+        TestEvent2 e1 = new TestEvent2();
+        TestEvent2 e2 = new TestEvent2();
+        TestEvent2 e3 = new TestEvent2();
+        eventBus.send(e1);
+        eventBus.send(e2);
+        eventBus.send(e3);
+        assertEquals(4, pending.size());
+        assertEquals(2, eventBus.getDroppedEventCount());
+        while (!pending.isEmpty()) {
+            pending.remove(0).run();
+        }
+        assertEquals(Arrays.<Object>asList(e1, e2), testTarget.eventsDropNewest);
+        assertEquals(Arrays.<Object>asList(e2, e3), testTarget.eventsDropOldest);
+
+        //queue is empty again, next event should be accepted
+        eventBus.send(e1);
+        assertEquals(2, pending.size());
+        assertEquals(2, eventBus.getDroppedEventCount());
+        while (!pending.isEmpty()) {
+            pending.remove(0).run();
+        }
+
+        //case 2: DEAD_EVENT with capacity 1
+        //note: TestEvent3 goes also to the conflated TestEvent1 subscriber
+        TestEvent3 a = new TestEvent3();
+        TestEvent3 b = new TestEvent3();
+        eventBus.send(a);
+        eventBus.send(b);
+        assertEquals(2, pending.size());
+        assertEquals(3, eventBus.getDroppedEventCount());
+        assertNotNull(deadEvent);
+        assertSame(b, deadEvent.event);
+        while (!pending.isEmpty()) {
+            pending.remove(0).run();
+        }
+        assertEquals(Arrays.<Object>asList(a), testTarget.eventsDeadEvent);
+    }
+
 }
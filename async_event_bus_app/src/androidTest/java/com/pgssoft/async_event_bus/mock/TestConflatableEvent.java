@@ -0,0 +1,16 @@
+package com.pgssoft.async_event_bus.mock;
+
+import com.pgssoft.async_event_bus.ConflatableEvent;
+
+public class TestConflatableEvent implements ConflatableEvent {
+    public final String key;
+
+    public TestConflatableEvent(String key) {
+        this.key = key;
+    }
+
+    @Override
+    public Object getConflationKey() {
+        return key;
+    }
+}
@@ -0,0 +1,19 @@
+package com.pgssoft.async_event_bus.mock;
+
+import com.pgssoft.async_event_bus.EventBus;
+import com.pgssoft.async_event_bus.Subscribe;
+import com.pgssoft.async_event_bus_app.Event1;
+
+/**
+ * Target class known by the {@link TestSubscriberIndex}.
+ * See {@link TestTarget1} why it extends Event1.
+ */
+@SuppressWarnings("UnusedDeclaration")
+public class TestIndexedTarget extends Event1 {
+    public TestEvent1 lastReceivedEvent1 = null;
+
+    @Subscribe(EventBus.DeliveryThread.DISPATCHER)
+    public void onTestEvent1(TestEvent1 event) {
+        lastReceivedEvent1 = event;
+    }
+}
@@ -0,0 +1,38 @@
+package com.pgssoft.async_event_bus.mock;
+
+import com.pgssoft.async_event_bus.EventBus;
+import com.pgssoft.async_event_bus.SubscriberIndex;
+import com.pgssoft.async_event_bus.SubscriberInvoker;
+import com.pgssoft.async_event_bus.SubscriberMethodInfo;
+
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Hand written equivalent of the index generated by the async_event_bus_processor,
+ * knows only the {@link TestIndexedTarget}.
+ */
+public class TestSubscriberIndex implements SubscriberIndex {
+    public int invocations = 0;
+
+    public final SubscriberInvoker invoker = new SubscriberInvoker() {
+        @Override
+        public void invoke(Object target, Object event) throws Exception {
+            TestIndexedTarget typedTarget = (TestIndexedTarget) target;
+            TestEvent1 typedEvent = (TestEvent1) event;
+            invocations++;
+            try {
+                typedTarget.onTestEvent1(typedEvent);
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+    };
+
+    @Override
+    public SubscriberMethodInfo[] getSubscriberMethods(Class<?> targetClass) {
+        if (targetClass != TestIndexedTarget.class) return null;
+        return new SubscriberMethodInfo[]{
+                new SubscriberMethodInfo("onTestEvent1", TestEvent1.class, EventBus.DeliveryThread.DISPATCHER, invoker)
+        };
+    }
+}
@@ -0,0 +1,46 @@
+package com.pgssoft.async_event_bus.mock;
+
+import com.pgssoft.async_event_bus.EventBus;
+import com.pgssoft.async_event_bus.Subscribe;
+import com.pgssoft.async_event_bus_app.Event1;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Target with BACKGROUND subscribers, for tests with manually run Executor.
+ * See {@link TestTarget1} why it extends Event1.
+ */
+@SuppressWarnings("UnusedDeclaration")
+public class TestTarget3 extends Event1 {
+    public List<Object> eventsConflated = new ArrayList<Object>();
+    public List<Object> eventsConflatable = new ArrayList<Object>();
+    public List<Object> eventsDropNewest = new ArrayList<Object>();
+    public List<Object> eventsDropOldest = new ArrayList<Object>();
+    public List<Object> eventsDeadEvent = new ArrayList<Object>();
+
+    @Subscribe(value = EventBus.DeliveryThread.BACKGROUND, conflate = true)
+    public void onTestEvent1Conflated(TestEvent1 event) {
+        eventsConflated.add(event);
+    }
+
+    @Subscribe(EventBus.DeliveryThread.BACKGROUND)
+    public void onTestConflatableEvent(TestConflatableEvent event) {
+        eventsConflatable.add(event);
+    }
+
+    @Subscribe(value = EventBus.DeliveryThread.BACKGROUND, capacity = 2)
+    public void onTestEvent2DropNewest(TestEvent2 event) {
+        eventsDropNewest.add(event);
+    }
+
+    @Subscribe(value = EventBus.DeliveryThread.BACKGROUND, capacity = 2, overflow = EventBus.OverflowPolicy.DROP_OLDEST)
+    public void onTestInterfaceEvent1DropOldest(TestInterfaceEvent1 event) {
+        eventsDropOldest.add(event);
+    }
+
+    @Subscribe(value = EventBus.DeliveryThread.BACKGROUND, capacity = 1, overflow = EventBus.OverflowPolicy.DEAD_EVENT)
+    public void onTestEvent3DeadEvent(TestEvent3 event) {
+        eventsDeadEvent.add(event);
+    }
+}
@@ -14,6 +14,11 @@ public class MainActivity extends Activity implements View.OnClickListener {
 
     static final EventBus M_EVENT_BUS = new EventBus();
 
+    static {
+        //use compile-time generated index, so MainActivity will not be scanned by reflection
+        EventBus.addIndex(new AppSubscriberIndex());
+    }
+
     TextView out;
 
     @Override
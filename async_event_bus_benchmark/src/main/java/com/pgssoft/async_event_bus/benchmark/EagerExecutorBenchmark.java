@@ -0,0 +1,85 @@
+package com.pgssoft.async_event_bus.benchmark;
+
+import com.pgssoft.async_event_bus.EagerThreadPoolExecutor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the EagerThreadPoolExecutor with its previous, locking implementation.
+ * <p/>
+ * Every operation submits a burst of tasks from one of 4 producer threads, and waits until the burst is executed,
+ * like the bus does when it delivers an event to many BACKGROUND subscribers.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class EagerExecutorBenchmark {
+
+    static final int BURST = 100;
+
+    @Param({"eager", "locking"})
+    public String implementation;
+
+    /**
+     * Amount of work of one task, in JMH tokens.
+     */
+    @Param({"0", "1000"})
+    public int work;
+
+    ThreadPoolExecutor mExecutor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        int maximum = Math.max(2, Runtime.getRuntime().availableProcessors() * 2);
+        mExecutor = "eager".equals(implementation)
+                ? new EagerThreadPoolExecutor(2, maximum, 60, TimeUnit.SECONDS)
+                : new LockingEagerThreadPoolExecutor(2, maximum, 60, TimeUnit.SECONDS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        mExecutor.shutdown();
+        mExecutor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    public void burst() throws InterruptedException {
+        final CountDownLatch done = new CountDownLatch(BURST);
+        final int tokens = work;
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                if (tokens > 0) {
+                    Blackhole.consumeCPU(tokens);
+                }
+                done.countDown();
+            }
+        };
+        for (int i = 0; i < BURST; i++) {
+            mExecutor.execute(task);
+        }
+        done.await();
+    }
+}
@@ -0,0 +1,74 @@
+package com.pgssoft.async_event_bus.benchmark;
+
+import com.pgssoft.async_event_bus.EventBus;
+import com.pgssoft.async_event_bus.ThreadScheduler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Post and send of one event to many subscribers, each operation waits for all deliveries.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FanOutBenchmark {
+
+    @Param({"1", "10", "1000"})
+    public int subscribers;
+
+    @Param({"DISPATCHER", "BACKGROUND", "BACKGROUND_SERIAL"})
+    public EventBus.DeliveryThread thread;
+
+    EventBus mEventBus;
+    final AtomicLong mReceived = new AtomicLong();
+    long mExpected;
+    final Receivers.Event mEvent = new Receivers.Event();
+
+    /**
+     * Keeps targets reachable, the bus holds them weakly.
+     */
+    final List<Object> mTargets = new ArrayList<Object>();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mEventBus = new EventBus("benchmark", null, new ThreadScheduler("benchmark"));
+        for (int i = 0; i < subscribers; i++) {
+            Object target = Receivers.create(thread, mReceived);
+            mTargets.add(target);
+            mEventBus.register(target);
+        }
+    }
+
+    @Benchmark
+    public void post() {
+        mEventBus.post(mEvent);
+        mExpected += subscribers;
+        Receivers.await(mReceived, mExpected);
+    }
+
+    @Benchmark
+    public void send() {
+        mEventBus.send(mEvent);
+        mExpected += subscribers;
+        Receivers.await(mReceived, mExpected);
+    }
+}
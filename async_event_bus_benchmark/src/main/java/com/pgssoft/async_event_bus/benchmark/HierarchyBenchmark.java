@@ -0,0 +1,185 @@
+package com.pgssoft.async_event_bus.benchmark;
+
+import com.pgssoft.async_event_bus.EventBus;
+import com.pgssoft.async_event_bus.Subscribe;
+import com.pgssoft.async_event_bus.ThreadScheduler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Send of events with deep class hierarchies, every level adds a superclass and an interface.
+ * <p/>
+ * The send benchmark uses the cached route. The sendAfterChange benchmark registers and unregisters an unrelated
+ * target first, which drops all routes, so it measures the route lookup of the whole hierarchy.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HierarchyBenchmark {
+
+    public interface Marker0 {
+    }
+
+    public interface Marker1 {
+    }
+
+    public interface Marker2 {
+    }
+
+    public interface Marker3 {
+    }
+
+    public interface Marker4 {
+    }
+
+    public interface Marker5 {
+    }
+
+    public interface Marker6 {
+    }
+
+    public interface Marker7 {
+    }
+
+    public interface Marker8 {
+    }
+
+    public interface Marker9 {
+    }
+
+    public interface Marker10 {
+    }
+
+    public interface Marker11 {
+    }
+
+    public interface Marker12 {
+    }
+
+    public interface Marker13 {
+    }
+
+    public interface Marker14 {
+    }
+
+    public interface Marker15 {
+    }
+
+    public interface Marker16 {
+    }
+
+    public static class Level0 implements Marker0 {
+    }
+
+    public static class Level1 extends Level0 implements Marker1 {
+    }
+
+    public static class Level2 extends Level1 implements Marker2 {
+    }
+
+    public static class Level3 extends Level2 implements Marker3 {
+    }
+
+    public static class Level4 extends Level3 implements Marker4 {
+    }
+
+    public static class Level5 extends Level4 implements Marker5 {
+    }
+
+    public static class Level6 extends Level5 implements Marker6 {
+    }
+
+    public static class Level7 extends Level6 implements Marker7 {
+    }
+
+    public static class Level8 extends Level7 implements Marker8 {
+    }
+
+    public static class Level9 extends Level8 implements Marker9 {
+    }
+
+    public static class Level10 extends Level9 implements Marker10 {
+    }
+
+    public static class Level11 extends Level10 implements Marker11 {
+    }
+
+    public static class Level12 extends Level11 implements Marker12 {
+    }
+
+    public static class Level13 extends Level12 implements Marker13 {
+    }
+
+    public static class Level14 extends Level13 implements Marker14 {
+    }
+
+    public static class Level15 extends Level14 implements Marker15 {
+    }
+
+    public static class Level16 extends Level15 implements Marker16 {
+    }
+
+    public static class RootReceiver {
+        final AtomicLong mReceived = new AtomicLong();
+
+        @Subscribe(EventBus.DeliveryThread.DISPATCHER)
+        public void onRoot(Level0 event) {
+            mReceived.incrementAndGet();
+        }
+
+        @Subscribe(EventBus.DeliveryThread.DISPATCHER)
+        public void onMarker(Marker0 event) {
+            mReceived.incrementAndGet();
+        }
+    }
+
+    public static class OtherReceiver {
+        @Subscribe(EventBus.DeliveryThread.DISPATCHER)
+        public void onOther(Receivers.Event event) {
+        }
+    }
+
+    @Param({"0", "4", "16"})
+    public int depth;
+
+    EventBus mEventBus;
+    final RootReceiver mReceiver = new RootReceiver();
+    final OtherReceiver mOther = new OtherReceiver();
+    Object mEvent;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        mEventBus = new EventBus("benchmark", null, new ThreadScheduler("benchmark"));
+        mEventBus.register(mReceiver);
+        mEvent = Class.forName(HierarchyBenchmark.class.getName() + "$Level" + depth).newInstance();
+    }
+
+    @Benchmark
+    public void send() {
+        mEventBus.send(mEvent);
+    }
+
+    @Benchmark
+    public void sendAfterChange() {
+        mEventBus.register(mOther);
+        mEventBus.unregister(mOther);
+        mEventBus.send(mEvent);
+    }
+}
@@ -1,4 +1,4 @@
-package com.pgssoft.async_event_bus;
+package com.pgssoft.async_event_bus.benchmark;
 
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadFactory;
@@ -8,6 +8,9 @@ import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
+ * The previous implementation of the EagerThreadPoolExecutor, kept as the baseline for {@link EagerExecutorBenchmark}.
+ * It pauses all workers and resizes the pool on every submission.
+ * <p/>
  * Java ThreadPoolExecutor first add task to "core" threads, then it adds tasks to queue,
  * then if queue is full it add more threads. It means if we use infinite queue, it will
  * never add more threads. If we use finite, small queue, in order to spawn more threads,
@@ -20,10 +23,10 @@ import java.util.concurrent.locks.ReentrantLock;
  * <p/>
  * Created by lplominski on 2014-10-17.
  */
-public class EagerThreadPoolExecutor extends ThreadPoolExecutor {
+public class LockingEagerThreadPoolExecutor extends ThreadPoolExecutor {
 
     /**
-     * Creates a new {@code EagerThreadPoolExecutor} with the given initial
+     * Creates a new {@code LockingEagerThreadPoolExecutor} with the given initial
      * parameters and default thread factory and rejected execution handler.
      * It will use LinkedBlockingQueue<Runnable> as queue.
      * It may be more convenient to use one of the {@link java.util.concurrent.Executors} factory
@@ -45,7 +48,7 @@ public class EagerThreadPoolExecutor extends ThreadPoolExecutor {
      * @throws NullPointerException     if {@code workQueue} is null
      */
     @SuppressWarnings("UnusedDeclaration")
-    public EagerThreadPoolExecutor(int keepAlivePoolSize,
+    public LockingEagerThreadPoolExecutor(int keepAlivePoolSize,
                                    int maximumPoolSize,
                                    long keepAliveTime,
                                    TimeUnit unit) {
@@ -54,7 +57,7 @@ public class EagerThreadPoolExecutor extends ThreadPoolExecutor {
     }
 
     /**
-     * Creates a new {@code EagerThreadPoolExecutor} with the given initial
+     * Creates a new {@code LockingEagerThreadPoolExecutor} with the given initial
      * parameters and default rejected execution handler.
      * It will use LinkedBlockingQueue<Runnable> as queue.
      *
@@ -76,7 +79,7 @@ public class EagerThreadPoolExecutor extends ThreadPoolExecutor {
      * @throws NullPointerException     if {@code workQueue}
      *                                  or {@code threadFactory} is null
      */
-    public EagerThreadPoolExecutor(int keepAlivePoolSize,
+    public LockingEagerThreadPoolExecutor(int keepAlivePoolSize,
                                    int maximumPoolSize,
                                    long keepAliveTime,
                                    TimeUnit unit,
@@ -0,0 +1,90 @@
+package com.pgssoft.async_event_bus.benchmark;
+
+import com.pgssoft.async_event_bus.EventBus;
+import com.pgssoft.async_event_bus.ThreadScheduler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Post and send of one event to one subscriber, for every DeliveryThread.
+ * <p/>
+ * The roundTrip benchmarks wait for each delivery, so the sample time is the post-to-delivery latency.
+ * The stream benchmarks post a burst of events, and wait for the last one, so they measure throughput.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PostBenchmark {
+
+    static final int STREAM = 100;
+
+    @Param({"DISPATCHER", "UI", "AS_REGISTERED", "BACKGROUND", "BACKGROUND_SERIAL", "VIRTUAL"})
+    public EventBus.DeliveryThread thread;
+
+    EventBus mEventBus;
+    final AtomicLong mReceived = new AtomicLong();
+    long mExpected;
+    final Receivers.Event mEvent = new Receivers.Event();
+
+    /**
+     * Keeps the target reachable, the bus holds it weakly.
+     */
+    Object mTarget;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mEventBus = new EventBus("benchmark", null, new ThreadScheduler("benchmark"));
+        mTarget = Receivers.create(thread, mReceived);
+        mEventBus.register(mTarget);
+    }
+
+    @Benchmark
+    public void postRoundTrip() {
+        mEventBus.post(mEvent);
+        Receivers.await(mReceived, ++mExpected);
+    }
+
+    @Benchmark
+    public void sendRoundTrip() {
+        mEventBus.send(mEvent);
+        Receivers.await(mReceived, ++mExpected);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STREAM)
+    public void postStream() {
+        for (int i = 0; i < STREAM; i++) {
+            mEventBus.post(mEvent);
+        }
+        mExpected += STREAM;
+        Receivers.await(mReceived, mExpected);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STREAM)
+    public void sendStream() {
+        for (int i = 0; i < STREAM; i++) {
+            mEventBus.send(mEvent);
+        }
+        mExpected += STREAM;
+        Receivers.await(mReceived, mExpected);
+    }
+}
@@ -0,0 +1,122 @@
+package com.pgssoft.async_event_bus.benchmark;
+
+import com.pgssoft.async_event_bus.EventBus;
+import com.pgssoft.async_event_bus.Subscribe;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Subscribers used by benchmarks, one class per DeliveryThread, as the thread is a constant of the annotation.
+ * All receivers of one benchmark count deliveries in one shared counter.
+ */
+public final class Receivers {
+
+    private Receivers() {
+    }
+
+    public static class Event {
+    }
+
+    public abstract static class Receiver {
+        final AtomicLong mReceived;
+
+        Receiver(AtomicLong received) {
+            mReceived = received;
+        }
+    }
+
+    public static class DispatcherReceiver extends Receiver {
+        public DispatcherReceiver(AtomicLong received) {
+            super(received);
+        }
+
+        @Subscribe(EventBus.DeliveryThread.DISPATCHER)
+        public void onEvent(Event event) {
+            mReceived.incrementAndGet();
+        }
+    }
+
+    public static class UiReceiver extends Receiver {
+        public UiReceiver(AtomicLong received) {
+            super(received);
+        }
+
+        @Subscribe(EventBus.DeliveryThread.UI)
+        public void onEvent(Event event) {
+            mReceived.incrementAndGet();
+        }
+    }
+
+    public static class AsRegisteredReceiver extends Receiver {
+        public AsRegisteredReceiver(AtomicLong received) {
+            super(received);
+        }
+
+        @Subscribe(EventBus.DeliveryThread.AS_REGISTERED)
+        public void onEvent(Event event) {
+            mReceived.incrementAndGet();
+        }
+    }
+
+    public static class BackgroundReceiver extends Receiver {
+        public BackgroundReceiver(AtomicLong received) {
+            super(received);
+        }
+
+        @Subscribe(EventBus.DeliveryThread.BACKGROUND)
+        public void onEvent(Event event) {
+            mReceived.incrementAndGet();
+        }
+    }
+
+    public static class BackgroundSerialReceiver extends Receiver {
+        public BackgroundSerialReceiver(AtomicLong received) {
+            super(received);
+        }
+
+        @Subscribe(EventBus.DeliveryThread.BACKGROUND_SERIAL)
+        public void onEvent(Event event) {
+            mReceived.incrementAndGet();
+        }
+    }
+
+    public static class VirtualReceiver extends Receiver {
+        public VirtualReceiver(AtomicLong received) {
+            super(received);
+        }
+
+        @Subscribe(EventBus.DeliveryThread.VIRTUAL)
+        public void onEvent(Event event) {
+            mReceived.incrementAndGet();
+        }
+    }
+
+    /**
+     * Create a receiver for given delivery thread.
+     */
+    public static Receiver create(EventBus.DeliveryThread thread, AtomicLong received) {
+        switch (thread) {
+            case DISPATCHER:
+                return new DispatcherReceiver(received);
+            case UI:
+                return new UiReceiver(received);
+            case BACKGROUND:
+                return new BackgroundReceiver(received);
+            case BACKGROUND_SERIAL:
+                return new BackgroundSerialReceiver(received);
+            case VIRTUAL:
+                return new VirtualReceiver(received);
+            default:
+                return new AsRegisteredReceiver(received);
+        }
+    }
+
+    /**
+     * Wait until the counter reaches expected value. Spins, as blocking would dominate short operations.
+     */
+    public static void await(AtomicLong received, long expected) {
+        while (received.get() < expected) {
+            Thread.yield();
+        }
+    }
+}
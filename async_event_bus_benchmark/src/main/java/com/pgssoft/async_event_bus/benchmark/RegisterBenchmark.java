@@ -0,0 +1,101 @@
+package com.pgssoft.async_event_bus.benchmark;
+
+import com.pgssoft.async_event_bus.EventBus;
+import com.pgssoft.async_event_bus.EventHandler;
+import com.pgssoft.async_event_bus.Subscribe;
+import com.pgssoft.async_event_bus.ThreadScheduler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Register and unregister of one target, or subscribe and close of one handler,
+ * while many other targets are registered already.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RegisterBenchmark {
+
+    /**
+     * Typical screen, subscribing few event types, some shared with other screens.
+     */
+    public static class Screen {
+        @Subscribe(EventBus.DeliveryThread.UI)
+        public void onEvent(Receivers.Event event) {
+        }
+
+        @Subscribe(EventBus.DeliveryThread.BACKGROUND)
+        public void onString(String event) {
+        }
+
+        @Subscribe(EventBus.DeliveryThread.DISPATCHER)
+        public void onInteger(Integer event) {
+        }
+
+        @Subscribe
+        public void onLong(Long event) {
+        }
+    }
+
+    @Param({"0", "1000", "10000"})
+    public int registered;
+
+    EventBus mEventBus;
+
+    /**
+     * Keeps targets reachable, the bus holds them weakly.
+     */
+    final List<Object> mTargets = new ArrayList<Object>();
+    final Screen mNotRegistered = new Screen();
+    final EventHandler<Receivers.Event> mHandler = new EventHandler<Receivers.Event>() {
+        @Override
+        public void onEvent(Receivers.Event event) {
+        }
+    };
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mEventBus = new EventBus("benchmark", null, new ThreadScheduler("benchmark"));
+        for (int i = 0; i < registered; i++) {
+            Screen target = new Screen();
+            mTargets.add(target);
+            mEventBus.register(target);
+        }
+    }
+
+    @Benchmark
+    public void registerUnregister() {
+        Screen target = new Screen();
+        mEventBus.register(target);
+        mEventBus.unregister(target);
+    }
+
+    @Benchmark
+    public void subscribeClose() {
+        mEventBus.subscribe(Receivers.Event.class, EventBus.DeliveryThread.UI, mHandler).close();
+    }
+
+    @Benchmark
+    public void unregisterNotRegistered() {
+        //the lookup part of unregister alone
+        mEventBus.unregister(mNotRegistered);
+    }
+}
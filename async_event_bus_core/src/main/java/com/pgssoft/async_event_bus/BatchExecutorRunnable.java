@@ -0,0 +1,87 @@
+package com.pgssoft.async_event_bus;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A Runnable that execute many Subscriber methods, in order they were added.
+ * <p/>
+ * Used to deliver a batch of events (see {@link EventBus#postAll(java.util.Collection)}), one BatchExecutorRunnable is
+ * posted to every thread, instead of one {@link ExecutorRunnable} for every event and every subscriber.
+ * <p/>
+ * BatchExecutorRunnables are reused, You have to use BatchExecutorRunnable.obtain() to get instance, and You are not allowed
+ * to do anything after You scheduled this instance for execution.
+ * <p/>
+ * Note: package access, class is for internal use only.
+ */
+/*package*/ class BatchExecutorRunnable implements Runnable {
+    static final Queue<BatchExecutorRunnable> mPool = new ConcurrentLinkedQueue<BatchExecutorRunnable>();
+
+    EventBus mEventBus;
+    final ArrayList<Subscriber> mSubscribers = new ArrayList<Subscriber>();
+    final ArrayList<Object> mEvents = new ArrayList<Object>();
+    /**
+     * Conflation keys, null items for events that are not conflated.
+     */
+    final ArrayList<Object> mConflationKeys = new ArrayList<Object>();
+    /**
+     * Correlation ID of the batch, or 0 if not traced.
+     */
+    long mTraceId;
+    /**
+     * Stats of the bus, if enabled when delivery was scheduled, and the time it was scheduled.
+     */
+    EventBusStats mStats;
+    long mScheduleTime;
+
+    @NonNull
+    static BatchExecutorRunnable obtain(@NonNull EventBus bus) {
+        BatchExecutorRunnable result = mPool.poll();
+        if (result == null) {
+            result = new BatchExecutorRunnable();
+        }
+        result.mEventBus = bus;
+        return result;
+    }
+
+    void add(@NonNull Subscriber subscriber, @NonNull Object event, @Nullable Object conflationKey) {
+        mSubscribers.add(subscriber);
+        mEvents.add(event);
+        mConflationKeys.add(conflationKey);
+    }
+
+    void setStats(@Nullable EventBusStats stats) {
+        if (stats != null) {
+            mStats = stats;
+            mScheduleTime = System.nanoTime();
+            stats.onDeliveryScheduled();
+        }
+    }
+
+    @Override
+    public void run() {
+        if (mStats != null) {
+            mStats.onDeliveryStarted(mScheduleTime);
+        }
+        for (int i = 0, size = mSubscribers.size(); i < size; i++) {
+            Subscriber subscriber = mSubscribers.get(i);
+            Object event = subscriber.resolveEvent(mEvents.get(i), mConflationKeys.get(i));
+            if (event != null) {
+                subscriber.deliverEvent(mEventBus, event, mTraceId);
+            }
+        }
+
+        //reset and move myself to pool
+        mEventBus = null;
+        mStats = null;
+        mTraceId = 0;
+        mSubscribers.clear();
+        mEvents.clear();
+        mConflationKeys.clear();
+        mPool.add(this);
+    }
+}
@@ -0,0 +1,26 @@
+package com.pgssoft.async_event_bus;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Event that can be conflated.
+ * <p/>
+ * If a subscriber (in thread other than DeliveryThread.DISPATCHER) did not yet receive the event, and the new event
+ * with the same conflation key is posted, the new event replaces the old one. Subscriber that falls behind will
+ * get just the latest event, instead of the whole backlog.
+ * <p/>
+ * Good candidates are progress or state events, when only the latest value is important.
+ * To conflate events that do not implement this interface, use {@link Subscribe#conflate()}.
+ */
+public interface ConflatableEvent {
+
+    /**
+     * Returns the conflation key.
+     * Pending event is replaced only by the event with equal key, ex. progress of the same download.
+     *
+     * @return @NonNull the key, must properly implement equals() and hashCode().
+     */
+    @NonNull
+    Object getConflationKey();
+
+}
@@ -0,0 +1,367 @@
+package com.pgssoft.async_event_bus;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+
+/**
+ * Dispatcher is an class used to process posted event, or a batch of posted events.
+ * It is responsible for finding all subscribers, and delivering event to subscribers
+ * according to their needs.
+ * <p/>
+ * Dispatcher is Runnable, it will be executed by some Executor, usually by the dispatcher thread executor
+ * <p/>
+ * Dispatchers are reused, You have to use Dispatcher.obtain() to get instance, and You are not allowed
+ * to do anything after You posted this instance.
+ * <p/>
+ * Note: package access, class is for internal bus use.
+ */
+/*package*/ class Dispatcher implements Runnable {
+    static final Queue<Dispatcher> mPool = new ConcurrentLinkedQueue<Dispatcher>();
+
+    /**
+     * Cache for all classes/interfaces of given event class.
+     * Key: event class
+     * Value: set of classes/interfaces
+     */
+    final static Map<Class<?>, Set<Class<?>>> mEventClassHierarchyCache = new ConcurrentHashMap<Class<?>, Set<Class<?>>>();
+
+    EventBus mEventBus;
+    Object mEvent;
+    Object mSingleTarget;
+
+    /**
+     * Thread that posted the event. If it is a {@link WorkStealingExecutor} worker, background deliveries go
+     * to its own queues.
+     */
+    Thread mPostingThread;
+
+    /**
+     * Events to dispatch, if dispatcher is processing a batch, null otherwise.
+     */
+    Object[] mEvents;
+
+    /**
+     * Dispatcher is replaying sticky events to a new target.
+     * Sticky events without subscribers are not dead, they are still waiting for the subscribers.
+     */
+    boolean mSticky;
+
+    /**
+     * Priority of the event, see {@link EventBus#post(Object, int)}. Passed to deliveries of the event.
+     */
+    int mPriority;
+
+    /**
+     * System.nanoTime() of the post, or 0 if stats were disabled.
+     */
+    long mPostTime;
+
+    /**
+     * Stats counting this dispatcher as waiting for the dispatcher thread, null if it is not counted.
+     */
+    EventBusStats mQueuedStats;
+
+    /**
+     * Correlation ID of the post, or 0 if tracer was not installed, see {@link EventTracer}.
+     */
+    long mTraceId;
+
+    /**
+     * Pending deliveries of the batch, one BatchExecutorRunnable per Executor.
+     * Both lists have same size, kept with the pooled instance to avoid allocations.
+     */
+    final List<Executor> mBatchThreads = new ArrayList<Executor>();
+    final List<BatchExecutorRunnable> mBatches = new ArrayList<BatchExecutorRunnable>();
+
+    @NonNull
+    static Dispatcher obtain(@NonNull final EventBus eventBus, @NonNull final Object event, @Nullable final Object singleTarget) {
+        Dispatcher result = mPool.poll();
+        if (result == null) {
+            result = new Dispatcher();
+        }
+        result.mEventBus = eventBus;
+        result.mEvent = event;
+        result.mSingleTarget = singleTarget;
+        result.mPostingThread = Thread.currentThread();
+        result.mPostTime = eventBus.mStats != null ? System.nanoTime() : 0;
+        result.mTraceId = eventBus.mTracer != null ? EventBus.getTraceId() : 0;
+        return result;
+    }
+
+    @NonNull
+    static Dispatcher obtainBatch(@NonNull final EventBus eventBus, @NonNull final Object[] events, @Nullable final Object singleTarget) {
+        Dispatcher result = obtain(eventBus, events[0], singleTarget);
+        result.mEvents = events;
+        return result;
+    }
+
+    @Override
+    public void run() {
+        if (mQueuedStats != null) {
+            mQueuedStats.onDispatcherStarted();
+            mQueuedStats = null;
+        }
+        EventBusStats stats = mEventBus.mStats;
+        if (stats != null && mPostTime != 0) {
+            stats.mPostToDispatch.record(System.nanoTime() - mPostTime);
+        }
+
+        if (mEvents != null) {
+            dispatchBatch();
+        } else {
+            dispatch();
+        }
+
+        recycle();
+    }
+
+    /**
+     * Reset and move myself to pool. Dispatcher must not be used anymore.
+     */
+    void recycle() {
+        mEventBus = null;
+        mEvent = null;
+        mEvents = null;
+        mSticky = false;
+        mPriority = EventBus.PRIORITY_NORMAL;
+        mPostTime = 0;
+        mQueuedStats = null;
+        mTraceId = 0;
+        mSingleTarget = null;
+        mPostingThread = null;
+        mPool.add(this);
+    }
+
+    void dispatch() {
+        dispatchEvent(mEvent);
+    }
+
+    /**
+     * Dispatch all events from mEvents, in order.
+     * Deliveries to other threads are collected, and scheduled as one BatchExecutorRunnable per thread
+     * after all events are dispatched.
+     */
+    void dispatchBatch() {
+        try {
+            for (Object event : mEvents) {
+                dispatchEvent(event);
+            }
+        } finally {
+            for (int i = 0, size = mBatches.size(); i < size; i++) {
+                execute(mBatchThreads.get(i), mBatches.get(i));
+            }
+            mBatchThreads.clear();
+            mBatches.clear();
+        }
+    }
+
+    void dispatchEvent(@NonNull Object event) {
+        EventBusStats stats = mEventBus.mStats;
+        if (stats != null) {
+            stats.onDispatched(event);
+        }
+        EventTracer tracer = mEventBus.mTracer;
+        if (tracer != null && mTraceId != 0) {
+            tracer.onDispatched(mTraceId, event);
+        }
+        boolean dispatched = false;
+
+        for (Subscriber subscriber : mEventBus.getSubscribersForEventClass(event.getClass())) {
+            Object target = subscriber.mTarget.get();
+            //skip GCed targets
+            if (target == null) continue;
+            //if set to deliver to single target, dispatch to this target only.
+            if (mSingleTarget != null && target != mSingleTarget) continue;
+
+            dispatched = true;
+            deliver(subscriber, target, event);
+        }
+        //if not dispatched, send DeadEvent
+        if (!dispatched && !mSticky && !(event instanceof DeadEvent)) {
+            if (stats != null) {
+                stats.mDeadEvents.increment();
+            }
+            dispatchEvent(new DeadEvent(mEventBus, event));
+        }
+    }
+
+    /**
+     * Deliver event to one subscriber, in thread according to subscriber needs.
+     * Debounced and throttled events are deferred, or dropped, here, before any thread hop.
+     */
+    void deliver(@NonNull Subscriber subscriber, @NonNull Object target, @NonNull Object event) {
+        if (subscriber.mRateLimiter != null && !subscriber.mRateLimiter.offer(mEventBus, event, mPriority, mTraceId)) {
+            return;
+        }
+        deliverNow(subscriber, target, event);
+    }
+
+    /**
+     * Deliver event to one subscriber, in thread according to subscriber needs, without the rate limit.
+     */
+    void deliverNow(@NonNull Subscriber subscriber, @NonNull Object target, @NonNull Object event) {
+        switch (subscriber.mThread) {
+            case DISPATCHER:
+                subscriber.deliverEvent(mEventBus, event, mTraceId);
+                break;
+
+            case UI:
+                schedule(mEventBus.mUiExecutor, subscriber, event);
+                break;
+
+            case BACKGROUND:
+                schedule(mEventBus.mBackgroundExecutor, subscriber, event);
+                break;
+
+            case VIRTUAL:
+                schedule(mEventBus.mVirtualThreadExecutor, subscriber, event);
+                break;
+
+            case BACKGROUND_SERIAL:
+                //no mailbox for subscribers created outside register(), fallback to BACKGROUND
+                schedule(subscriber.mMailbox != null ? subscriber.mMailbox : mEventBus.mBackgroundExecutor, subscriber, event);
+                break;
+
+            case AS_REGISTERED:
+                Executor executor = mEventBus.mScheduler.getExecutorForTarget(target);
+                if (executor == null) {
+                    //fallback to BACKGROUND
+                    schedule(mEventBus.mBackgroundExecutor, subscriber, event);
+                } else {
+                    schedule(executor, subscriber, event);
+                }
+                break;
+        }
+    }
+
+    /**
+     * Schedule delivery in given thread.
+     * If event is conflated, and older event is still pending, it just replaces the pending event.
+     * If subscriber is bounded, event goes to subscriber queue first, and the overflow policy is applied.
+     *
+     * @param thread the Executor of delivery thread.
+     */
+    void schedule(@NonNull Executor thread, @NonNull Subscriber subscriber, @NonNull Object event) {
+        final Object scheduledEvent = event;
+        Object conflationKey = subscriber.getConflationKey(event);
+        if (conflationKey != null) {
+            if (!subscriber.offerPendingEvent(conflationKey, event)) {
+                //delivery is scheduled already, and it will deliver this event
+                return;
+            }
+        } else if (subscriber.mQueue != null) {
+            switch (subscriber.offerQueuedEvent(event, mEvents == null)) {
+                case Subscriber.QUEUE_ACCEPTED:
+                    event = Subscriber.QUEUED;
+                    break;
+
+                case Subscriber.QUEUE_REPLACED_OLDEST:
+                    //deliveries are scheduled already, the oldest event is dropped instead
+                    mEventBus.mDroppedEventCount.incrementAndGet();
+                    return;
+
+                default:
+                    mEventBus.mDroppedEventCount.incrementAndGet();
+                    if (subscriber.mOverflow == EventBus.OverflowPolicy.DEAD_EVENT && !(event instanceof DeadEvent)) {
+                        dispatchEvent(new DeadEvent(mEventBus, event));
+                    }
+                    return;
+            }
+        }
+
+        EventTracer tracer = mEventBus.mTracer;
+        if (tracer != null && mTraceId != 0) {
+            tracer.onDeliveryQueued(mTraceId, scheduledEvent, subscriber.mTarget.get(), subscriber.mMethodDesc.getMethod());
+        }
+
+        if (mEvents != null) {
+            getBatch(thread).add(subscriber, event, conflationKey);
+        } else {
+            ExecutorRunnable runnable = ExecutorRunnable.obtain(mEventBus, subscriber, event, conflationKey);
+            runnable.mPriority = mPriority;
+            runnable.mTraceId = mTraceId;
+            runnable.setStats(mEventBus.mStats);
+            execute(thread, runnable);
+        }
+    }
+
+    /**
+     * Pass the runnable to the executor, keep it near the posting thread if the executor supports that.
+     */
+    void execute(@NonNull Executor thread, @NonNull Runnable runnable) {
+        if (thread instanceof WorkStealingExecutor) {
+            ((WorkStealingExecutor) thread).execute(runnable, mPostingThread);
+        } else {
+            thread.execute(runnable);
+        }
+    }
+
+    /**
+     * Get batch for given thread, create it if needed.
+     * Usually there are just few threads, so simple list is enough.
+     */
+    @NonNull
+    BatchExecutorRunnable getBatch(@NonNull Executor thread) {
+        for (int i = 0, size = mBatchThreads.size(); i < size; i++) {
+            if (mBatchThreads.get(i) == thread) {
+                return mBatches.get(i);
+            }
+        }
+        BatchExecutorRunnable result = BatchExecutorRunnable.obtain(mEventBus);
+        result.mTraceId = mTraceId;
+        result.setStats(mEventBus.mStats);
+        mBatchThreads.add(thread);
+        mBatches.add(result);
+        return result;
+    }
+
+    /**
+     * Get set of classes implemented by event object.
+     * This includes all super classes, all implemented interfaces, and all interfaces of superclasses.
+     */
+    @NonNull
+    static Set<Class<?>> getEventClasses(@NonNull final Object event) {
+        return getEventClasses(event.getClass());
+    }
+
+    /**
+     * Get set of classes implemented by given event class.
+     * This includes all super classes, all implemented interfaces, and all interfaces of superclasses.
+     */
+    @NonNull
+    static Set<Class<?>> getEventClasses(@NonNull final Class<?> eventClass) {
+        Set<Class<?>> classes = mEventClassHierarchyCache.get(eventClass);
+        if (classes == null) {
+            classes = new HashSet<Class<?>>();
+            List<Class<?>> parents = new LinkedList<Class<?>>();
+            parents.add(eventClass);
+
+            while (!parents.isEmpty()) {
+                Class<?> clazz = parents.remove(0);
+                classes.add(clazz);
+
+                Class<?> parent = clazz.getSuperclass();
+                if (parent != null) {
+                    parents.add(parent);
+                }
+                Collections.addAll(classes, clazz.getInterfaces());
+            }
+            mEventClassHierarchyCache.put(eventClass, classes);
+        }
+
+        return classes;
+    }
+
+}
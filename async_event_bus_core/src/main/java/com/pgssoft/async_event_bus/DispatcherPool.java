@@ -0,0 +1,130 @@
+package com.pgssoft.async_event_bus;
+
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Dispatcher threads shared by many buses.
+ * <p/>
+ * The pool have a fixed number of lanes, each lane is one thread executing runnables in order. Every bus is pinned to
+ * one lane (see {@link #nextLane()}), so events of the bus are still dispatched one by one, in order, but the number
+ * of dispatcher threads does not grow with the number of buses.
+ * <p/>
+ * Buses created with the default {@link Scheduler} use lanes of the {@link #getShared()} pool, or on Android, lanes
+ * of the HandlerScheduler pool, running with background priority. Note that a long DeliveryThread.DISPATCHER
+ * subscriber delays all buses pinned to its lane.
+ */
+public class DispatcherPool {
+
+    /**
+     * Creates a new pool, with given number of lanes. Lane thread is started on first use.
+     *
+     * @param name  @NonNull prefix for lane threads names, for debugging purposes.
+     * @param lanes number of lanes.
+     * @throws IllegalArgumentException if lanes is less than 1.
+     */
+    public DispatcherPool(@NonNull String name, int lanes) {
+        this(createLanes(name, lanes));
+    }
+
+    /**
+     * Creates a new pool, with given number of lanes, each one thread created by given factory.
+     * Lane thread is started on first use.
+     *
+     * @param lanes         number of lanes.
+     * @param threadFactory @NonNull factory of lane threads, ex. to name them or set their priority.
+     * @throws IllegalArgumentException if lanes is less than 1.
+     */
+    public DispatcherPool(int lanes, @NonNull ThreadFactory threadFactory) {
+        this(createLanes(lanes, threadFactory));
+    }
+
+    /**
+     * Creates a new pool, using given executors as lanes.
+     *
+     * @param lanes @NonNull lane executors, each must execute runnables in order, one by one.
+     *              Ex. {@link RingBufferExecutor}s.
+     * @throws IllegalArgumentException if there are no lanes.
+     */
+    public DispatcherPool(@NonNull Executor[] lanes) {
+        if (lanes.length == 0) {
+            throw new IllegalArgumentException("Pool needs at least one lane.");
+        }
+        mLanes = lanes.clone();
+    }
+
+    /**
+     * Get the lane for the next bus. Lanes are assigned round-robin.
+     */
+    @NonNull
+    public Executor nextLane() {
+        return mLanes[(mNextLane.getAndIncrement() & Integer.MAX_VALUE) % mLanes.length];
+    }
+
+    /**
+     * Get lane of given index.
+     *
+     * @param index lane index, from 0 to {@link #getLaneCount()} - 1.
+     */
+    @NonNull
+    public Executor getLane(int index) {
+        return mLanes[index];
+    }
+
+    /**
+     * Get number of lanes.
+     */
+    public int getLaneCount() {
+        return mLanes.length;
+    }
+
+    /**
+     * Get the pool shared by all buses created with the default Scheduler.
+     * It have one lane per available processor.
+     */
+    @NonNull
+    public static synchronized DispatcherPool getShared() {
+        if (mShared == null) {
+            mShared = new DispatcherPool("EventBus.Dispatcher", Runtime.getRuntime().availableProcessors());
+        }
+        return mShared;
+    }
+
+    //////////////////////////////////////////////////////////////////////////////////////////
+    // implementation
+
+    @NonNull
+    final Executor[] mLanes;
+
+    final AtomicInteger mNextLane = new AtomicInteger();
+
+    static DispatcherPool mShared;
+
+    @NonNull
+    static Executor[] createLanes(@NonNull String name, int lanes) {
+        if (lanes < 1) {
+            throw new IllegalArgumentException("Pool needs at least one lane.");
+        }
+        Executor[] result = new Executor[lanes];
+        for (int i = 0; i < lanes; i++) {
+            result[i] = Executors.newSingleThreadExecutor(new ThreadScheduler.DaemonThreadFactory(name + " #" + (i + 1)));
+        }
+        return result;
+    }
+
+    @NonNull
+    static Executor[] createLanes(int lanes, @NonNull ThreadFactory threadFactory) {
+        if (lanes < 1) {
+            throw new IllegalArgumentException("Pool needs at least one lane.");
+        }
+        Executor[] result = new Executor[lanes];
+        for (int i = 0; i < lanes; i++) {
+            result[i] = Executors.newSingleThreadExecutor(threadFactory);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,212 @@
+package com.pgssoft.async_event_bus;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Java ThreadPoolExecutor first add task to "core" threads, then it adds tasks to queue,
+ * then if queue is full it add more threads. It means if we use infinite queue, it will
+ * never add more threads. If we use finite, small queue, in order to spawn more threads,
+ * it become very likelly to raise RejectedExecutionException.
+ * <p/>
+ * As solution, there is adjusted version of ThreadPoolExecutor.
+ * It creates threads eagerly, and adds tasks to queue only when all threads are occupied.
+ * <p/>
+ * The queue refuses the task when there is no idle thread and the pool can still grow, so the ThreadPoolExecutor
+ * starts a new thread instead. Submission does not take any executor-wide lock, and worker threads are never paused.
+ * <p/>
+ * Created by lplominski on 2014-10-17.
+ */
+public class EagerThreadPoolExecutor extends ThreadPoolExecutor {
+
+    /**
+     * Creates a new {@code EagerThreadPoolExecutor} with the given initial
+     * parameters and default thread factory and rejected execution handler.
+     * It will use LinkedBlockingQueue<Runnable> as queue.
+     * It may be more convenient to use one of the {@link java.util.concurrent.Executors} factory
+     * methods instead of this general purpose constructor.
+     *
+     * @param keepAlivePoolSize the number of threads to keep in the pool, even
+     *                          if they are idle, unless {@code allowCoreThreadTimeOut} is set
+     * @param maximumPoolSize   the maximum number of threads to allow in the
+     *                          pool
+     * @param keepAliveTime     when the number of threads is greater than
+     *                          the core, this is the maximum time that excess idle threads
+     *                          will wait for new tasks before terminating.
+     * @param unit              the time unit for the {@code keepAliveTime} argument
+     * @throws IllegalArgumentException if one of the following holds:<br>
+     *                                  {@code keepAlivePoolSize < 0}<br>
+     *                                  {@code keepAliveTime < 0}<br>
+     *                                  {@code maximumPoolSize <= 0}<br>
+     *                                  {@code maximumPoolSize < keepAlivePoolSize}
+     * @throws NullPointerException     if {@code workQueue} is null
+     */
+    @SuppressWarnings("UnusedDeclaration")
+    public EagerThreadPoolExecutor(int keepAlivePoolSize,
+                                   int maximumPoolSize,
+                                   long keepAliveTime,
+                                   TimeUnit unit) {
+        this(keepAlivePoolSize, maximumPoolSize, keepAliveTime, unit, Executors.defaultThreadFactory());
+    }
+
+    /**
+     * Creates a new {@code EagerThreadPoolExecutor} with the given initial
+     * parameters and default rejected execution handler.
+     * It will use LinkedBlockingQueue<Runnable> as queue.
+     *
+     * @param keepAlivePoolSize the number of threads to keep in the pool, even
+     *                          if they are idle, unless {@code allowCoreThreadTimeOut} is set
+     * @param maximumPoolSize   the maximum number of threads to allow in the
+     *                          pool
+     * @param keepAliveTime     when the number of threads is greater than
+     *                          the core, this is the maximum time that excess idle threads
+     *                          will wait for new tasks before terminating.
+     * @param unit              the time unit for the {@code keepAliveTime} argument
+     * @param threadFactory     the factory to use when the executor
+     *                          creates a new thread
+     * @throws IllegalArgumentException if one of the following holds:<br>
+     *                                  {@code keepAlivePoolSize < 0}<br>
+     *                                  {@code keepAliveTime < 0}<br>
+     *                                  {@code maximumPoolSize <= 0}<br>
+     *                                  {@code maximumPoolSize < keepAlivePoolSize}
+     * @throws NullPointerException     if {@code workQueue}
+     *                                  or {@code threadFactory} is null
+     */
+    public EagerThreadPoolExecutor(int keepAlivePoolSize,
+                                   int maximumPoolSize,
+                                   long keepAliveTime,
+                                   TimeUnit unit,
+                                   ThreadFactory threadFactory) {
+        this(keepAlivePoolSize, maximumPoolSize, keepAliveTime, unit, new EagerQueue(), new CountingThreadFactory(threadFactory));
+    }
+
+    private EagerThreadPoolExecutor(int keepAlivePoolSize, int maximumPoolSize, long keepAliveTime, TimeUnit unit,
+                                    EagerQueue queue, CountingThreadFactory threadFactory) {
+        super(keepAlivePoolSize, maximumPoolSize, keepAliveTime, unit, queue, threadFactory);
+        mQueue = queue;
+        mThreadFactory = threadFactory;
+        queue.mExecutor = this;
+    }
+
+    /**
+     * Executes the given task sometime in the future.  The task
+     * may execute in a new thread or in an existing pooled thread.
+     * <p/>
+     * If the task cannot be submitted for execution, either because this
+     * executor has been shutdown or because its capacity has been reached,
+     * the task is handled by the current {@code RejectedExecutionHandler}.
+     *
+     * @param command the task to execute
+     * @throws java.util.concurrent.RejectedExecutionException at discretion of
+     *                                                         {@code RejectedExecutionHandler}, if the task
+     *                                                         cannot be accepted for execution
+     * @throws NullPointerException                            if {@code command} is null
+     */
+    @Override
+    public void execute(Runnable command) {
+        if (command == null) {
+            throw new NullPointerException();
+        }
+        mSubmittedCount.incrementAndGet();
+        try {
+            super.execute(command);
+        } catch (RejectedExecutionException e) {
+            /*
+             * The queue refused the task because the pool could grow, but meanwhile other
+             * submissions grew it to the maximum. Now the task have to wait in the queue.
+             */
+            if (!isShutdown() && mQueue.force(command)) {
+                return;
+            }
+            mSubmittedCount.decrementAndGet();
+            throw e;
+        }
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////
+    //implementation
+
+    private final EagerQueue mQueue;
+    private final CountingThreadFactory mThreadFactory;
+
+    /**
+     * Number of tasks submitted, but not finished yet.
+     */
+    private final AtomicInteger mSubmittedCount = new AtomicInteger();
+
+    @Override
+    protected void afterExecute(Runnable r, Throwable t) {
+        super.afterExecute(r, t);
+        mSubmittedCount.decrementAndGet();
+    }
+
+    /**
+     * The queue refusing tasks when the pool should grow instead.
+     * Number of threads is taken from the thread factory, because getPoolSize() takes the executor main lock.
+     */
+    static class EagerQueue extends LinkedBlockingQueue<Runnable> {
+        private static final long serialVersionUID = 1L;
+
+        EagerThreadPoolExecutor mExecutor;
+
+        @Override
+        public boolean offer(Runnable runnable) {
+            EagerThreadPoolExecutor executor = mExecutor;
+            int threads = executor.mThreadFactory.mThreadCount.get();
+            //there is an idle thread, it will take the task from queue.
+            if (executor.mSubmittedCount.get() <= threads) {
+                return super.offer(runnable);
+            }
+            //all threads are busy, but pool can grow, refuse so executor starts a new thread.
+            if (threads < executor.getMaximumPoolSize()) {
+                return false;
+            }
+            return super.offer(runnable);
+        }
+
+        /**
+         * Put to queue, even if pool could grow.
+         */
+        boolean force(Runnable runnable) {
+            return super.offer(runnable);
+        }
+    }
+
+    /**
+     * Counts threads alive.
+     */
+    static class CountingThreadFactory implements ThreadFactory {
+        final ThreadFactory mThreadFactory;
+        final AtomicInteger mThreadCount = new AtomicInteger();
+
+        CountingThreadFactory(ThreadFactory threadFactory) {
+            if (threadFactory == null) {
+                throw new NullPointerException();
+            }
+            mThreadFactory = threadFactory;
+        }
+
+        @Override
+        public Thread newThread(final Runnable worker) {
+            Thread result = mThreadFactory.newThread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        worker.run();
+                    } finally {
+                        mThreadCount.decrementAndGet();
+                    }
+                }
+            });
+            if (result != null) {
+                mThreadCount.incrementAndGet();
+            }
+            return result;
+        }
+    }
+}
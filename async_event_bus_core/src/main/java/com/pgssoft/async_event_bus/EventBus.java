@@ -0,0 +1,1639 @@
+package com.pgssoft.async_event_bus;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Dispatches events to listeners, and provides ways for listeners to register themselves.
+ * <p/>
+ * The Bus allows publish-subscribe-style communication between components without requiring the components to
+ * explicitly register with one another (and thus be aware of each other).  It is designed exclusively to replace
+ * traditional Android in-process event distribution using explicit registration or listeners.
+ * <p/>
+ * Messages can be delivered in different process than they have been send. In fact, most processing is in special
+ * thread, we saving cycles in UI thread.
+ * <p/>
+ * The bus itself does not depend on Android. Threads are provided by the {@link Scheduler}, by default the
+ * HandlerScheduler on Android, and the {@link ThreadScheduler} on plain JVM.
+ * <p/>
+ * <h2>Receiving Events</h2>
+ * To receive events, an object should:
+ * <ol>
+ * <li>Expose a method (any access specifier), known as the <i>subscriber</i>, which accepts a single argument of the type of event
+ * desired;</li>
+ * <li>Mark it with a {@link Subscribe} annotation;</li>
+ * <li>Register itself to an Bus instance's, using {@link #register(Object)} method.
+ * </li>
+ * </ol>
+ * <p/>
+ * <h2>Posting Events</h2>
+ * To post an event, simply provide the event object to the {@link #post(Object)}, or the {@link #postDelayed(Object, long)},
+ * or the {@link #send(Object)} method. Many events can be posted at once, using {@link #postAll(Collection)}
+ * or {@link #sendAll(Collection)}.
+ * The Bus instance will determine the type of event and route it to all registered listeners.<br/>
+ * The difference between posting methods:
+ * <ol>
+ * <li>the {@link #post(Object)} will schedule an event for the dispatching thread, and return immediately.
+ * Event will be processed in dispatching thread, then delivered to subscribers, in threads according to their needs.</li>
+ * <li>the {@link #postDelayed(Object, long)} works like the {@link #post(Object)}, except that event will
+ * be scheduled for delayed delivery, after specified number of milliseconds. Note that there is no guarantee to deliver
+ * event at specific time, we can only guarantee to deliver event after specified amount of time passed.</li>
+ * <li>the {@link #send(Object)} works like the {@link #post(Object)}, except that the whole dispatch procedure will happen in
+ * the caller thread. It may bring better overall performance (no thread hoop), but will slow down caller thread.
+ * As a side effect, all subscribers with the DeliveryThread.DISPATCHER will be executed in the caller thread too, which may
+ * be desirable in some cases.</li>
+ * </ol>
+ * <p/>
+ * Events can be posted with a priority, using {@link #post(Object, int)} or {@link #postToTarget(Object, Object, int)}.
+ * Events of higher priority overtake events of lower priority waiting for the dispatcher thread, and for
+ * DeliveryThread.BACKGROUND_SERIAL subscribers. Events of the same priority keep their order, and waiting events
+ * of lower priority get their turn after a bounded number of more urgent ones, so they are delayed, but never starved.
+ * <p/>
+ * Events are routed based on their type &mdash; an event will be delivered to any subscriber for any type to which the
+ * event is <em>assignable.</em>  This includes implemented interfaces, all superclasses, and all interfaces implemented
+ * by superclasses.
+ * <p/>
+ * There is no guarantee that subscribers registered for given event will be executed in any order. In fact, subscribers
+ * that run in different threads may execute in same time. Because of this, and fact that all subscribers will got reference
+ * to same event object, it is strongly recommended to make events objects thread-safe (ex. immutable). Subscribers also
+ * should not modify event objects.
+ * <p/>
+ * But for the subsequent events, there is guarantee that events will be delivered in same order, with exception for
+ * DeliveryThread.BACKGROUND and DeliveryThread.VIRTUAL subscribers, which may be executed simultaneously.
+ * DeliveryThread.BACKGROUND_SERIAL subscribers of one target are executed one at a time, in order.
+ * <p/>
+ * <h2>Subscribers</h2>
+ * Subscribers must accept only one argument: the event.
+ * <p/>
+ * Subscribers should not, in general, throw.  If they do, the Bus will log the exception, but will not re-throw.
+ * <p/>
+ * <h2>Sticky Events</h2>
+ * An event posted using {@link #postSticky(Object)} is delivered as usual, and then kept by the Bus. Objects
+ * registered later will receive the latest sticky event of each class they subscribe, right after registration.
+ * <p/>
+ * <h2>Dead Events</h2>
+ * If an event is posted, but no registered subscribers can accept it, it is considered "dead."  To give the system a
+ * second chance to handle dead events, they are wrapped in an instance of {@link DeadEvent}
+ * and reposted. Note that this check is done on dispatch phase, not on delivery phase. It is possible that event was dispatched,
+ * but not executed, because subscribing object have been GCed
+ * <p/>
+ * This class is safe for concurrent use.
+ */
+public class EventBus {
+
+    public enum DeliveryThread {
+        /**
+         * The subscriber will be called in UI thread
+         */
+        UI,
+        /**
+         * The subscriber prefer to be called in background thread (random thread from Executor pool)
+         */
+        BACKGROUND,
+        /**
+         * The subscriber prefer to be called in events dispatcher thread.
+         * This is preferable for small and short subscribers.
+         * Note: If the sender choose to dispatch in his own thread (by calling the EventBus.send()),
+         * the subscriber will be called in the same thread.
+         */
+        DISPATCHER,
+        /**
+         * The subscriber must be called in the same thread that it registered itself to the bus.
+         * On Android the thread have to have an associated android.os.Looper (Looper.myLooper() should not be null)
+         * at the time the register() is called.
+         * If there is no android.os.Looper, this is equivalent of the DeliveryThread.BACKGROUND.
+         * If object is registered in UI thread, this is effectively equivalent of the Thread.UI,
+         * because UI thread always have a Looper.
+         * Best to ue with the android.os.HandlerThread.
+         * On plain JVM the subscriber is called in the "as registered" thread of the {@link ThreadScheduler}.
+         * Note: this is the default delivery thread value for the @Subscribe annotation.
+         */
+        AS_REGISTERED,
+        /**
+         * The subscriber does blocking work, like disk, network or database I/O.
+         * Every delivery runs in its own virtual thread, if the JVM supports them (Java 21 and newer),
+         * so many blocked subscribers do not hold threads of the background Executor.
+         * Elsewhere, including Android, this is equivalent of the DeliveryThread.BACKGROUND.
+         */
+        VIRTUAL,
+        /**
+         * The subscriber is called in background thread, but events for one target are delivered one at a time,
+         * in order, like to an actor mailbox. It applies to all BACKGROUND_SERIAL subscribers of the target, so they
+         * do not need any locks. Different targets are still called in parallel, and a target without pending
+         * events does not hold any thread.
+         * Note: if the target is unregistered and registered again, events from before and after may overlap.
+         */
+        BACKGROUND_SERIAL,
+    }
+
+    /**
+     * What to do with an event, when subscriber delivery queue is full.
+     * See {@link Subscribe#capacity()}.
+     */
+    public enum OverflowPolicy {
+        /**
+         * The new event is dropped.
+         */
+        DROP_NEWEST,
+        /**
+         * The oldest event waiting for delivery is dropped, to make room for the new one.
+         */
+        DROP_OLDEST,
+        /**
+         * The dispatching thread waits until there is room for the new event, but no longer than
+         * {@link Subscribe#overflowTimeout()}. If there is still no room, the new event is dropped.
+         * Note: events posted by {@link #postAll(Collection)} are delivered after whole batch is dispatched,
+         * so dispatcher can not wait for them, and new events are dropped immediately.
+         */
+        BLOCK,
+        /**
+         * The new event is not delivered to this subscriber, instead it is wrapped in a DeadEvent and dispatched.
+         */
+        DEAD_EVENT,
+    }
+
+    /**
+     * Who keeps the handler of a functional subscription alive.
+     * See {@link #subscribe(Class, DeliveryThread, EventHandler, HandlerRetention)}.
+     */
+    public enum HandlerRetention {
+        /**
+         * The bus keeps the handler, until the subscription is closed.
+         */
+        STRONG,
+        /**
+         * The returned Subscription keeps the handler. The subscription ends when the Subscription is closed,
+         * or when it is garbage collected, ex. with the object holding it.
+         */
+        WEAK,
+    }
+
+    /**
+     * Priority of events posted without one. Any int can be used as a priority, higher is more urgent.
+     */
+    public static final int PRIORITY_NORMAL = 0;
+
+    /**
+     * Priority for user visible events, that should overtake the regular traffic.
+     */
+    public static final int PRIORITY_HIGH = 1;
+
+    /**
+     * Priority for events nobody waits for, like analytics.
+     */
+    public static final int PRIORITY_LOW = -1;
+
+    /**
+     * Creates a new EventBus named "default".
+     */
+    public EventBus() {
+        this("default", null);
+    }
+
+    /**
+     * Creates a new EventBus with the given {@code name}.
+     *
+     * @param name a brief name for this bus, for debugging purposes.
+     */
+    public EventBus(@NonNull String name) {
+        this(name, null);
+    }
+
+    /**
+     * Creates a new EventBus with the given {@code name} and Executor.
+     *
+     * @param name     a brief name for this bus, for debugging purposes.
+     * @param executor executor to manage background threads. Pass null to use internal one,
+     *                 the {@link WorkStealingExecutor} shared by all buses.
+     */
+    public EventBus(@NonNull String name, @Nullable java.util.concurrent.Executor executor) {
+        this(name, executor, null);
+    }
+
+    /**
+     * Creates a new EventBus with the given {@code name}, Executor and Scheduler.
+     *
+     * @param name      a brief name for this bus, for debugging purposes.
+     * @param executor  executor to manage background threads. Pass null to use internal one.
+     * @param scheduler scheduler providing dispatcher, UI and "as registered" threads. Pass null to use
+     *                  the HandlerScheduler on Android, or the {@link ThreadScheduler} on plain JVM.
+     */
+    public EventBus(@NonNull String name, @Nullable java.util.concurrent.Executor executor, @Nullable Scheduler scheduler) {
+        mName = name;
+        mScheduler = scheduler != null ? scheduler : createDefaultScheduler(toString());
+        mDispatcherExecutor = mScheduler.getDispatcherExecutor();
+        //the PartitionedExecutor dispatches in parallel, one priority queue would serialize it
+        mDispatcherMailbox = mDispatcherExecutor instanceof PartitionedExecutor
+                ? null : new Mailbox(mDispatcherExecutor);
+        mUiExecutor = mScheduler.getUiExecutor();
+
+        if (executor != null) {
+            mBackgroundExecutor = executor;
+        } else {
+            synchronized (EventBus.class) {
+                if (mDefaultExecutor == null)
+                    mDefaultExecutor = new WorkStealingExecutor("EventBus.Background",
+                            2, Math.max(2, Runtime.getRuntime().availableProcessors() * 2), 60, TimeUnit.SECONDS);
+                mBackgroundExecutor = mDefaultExecutor;
+            }
+        }
+
+        Executor virtualThreadExecutor = getVirtualThreadExecutor();
+        mVirtualThreadExecutor = virtualThreadExecutor != null ? virtualThreadExecutor : mBackgroundExecutor;
+    }
+
+    /**
+     * Registers all subscriber methods on {@code target} to receive events.
+     *
+     * @param target @NonNull object whose subscriber methods should be registered.
+     */
+    public void register(@NonNull Object target) {
+        assignThreadForTarget(target);
+
+        TargetReference reference;
+        synchronized (mCurrentlyRegisteredSubscribersByEventType) {
+            reference = mRegisteredTargets.get(new TargetReference(target, null));
+        }
+        if (reference == null) {
+            reference = new TargetReference(target, mCollectedTargets);
+        }
+        //Key: event class
+        //Value: set of Subscriber's that can handle this event class.
+        Map<Class<?>, Set<Subscriber>> found = findAllSubscribers(target, reference);
+        assignMailbox(reference, found);
+        Set<Class<?>> added;
+        synchronized (mCurrentlyRegisteredSubscribersByEventType) {
+            purgeCollectedTargets();
+            TargetReference registered = mRegisteredTargets.get(reference);
+            if (registered != null && registered != reference) {
+                //concurrent register of the same target won, all subscribers of the target must share its reference
+                found = findAllSubscribers(target, registered);
+                assignMailbox(registered, found);
+            }
+            added = addSubscribers(reference, found);
+            invalidateRoutes();
+        }
+
+        //target registered again gets sticky events of its new subscribers only
+        if (!added.isEmpty()) {
+            replayStickyEvents(target, added);
+        }
+    }
+
+    /**
+     * Subscribe the handler to events of given type, and its subtypes.
+     * The handler is retained strongly, until the subscription is closed.
+     * <p/>
+     * Unlike {@link #register(Object)}, there is no reflection involved, and the handler is called directly.
+     * Subscribing the same handler for the same type again has no effect, closing any of the returned handles
+     * ends the subscription.
+     *
+     * @param eventType @NonNull the type of events.
+     * @param thread    @NonNull the delivery thread.
+     * @param handler   @NonNull the handler.
+     * @return @NonNull the subscription handle.
+     */
+    @NonNull
+    public <T> Subscription subscribe(@NonNull Class<T> eventType, @NonNull DeliveryThread thread,
+                                      @NonNull EventHandler<? super T> handler) {
+        return subscribe(eventType, thread, handler, HandlerRetention.STRONG);
+    }
+
+    /**
+     * Subscribe the handler to events of given type, and its subtypes.
+     *
+     * @param eventType @NonNull the type of events.
+     * @param thread    @NonNull the delivery thread.
+     * @param handler   @NonNull the handler.
+     * @param retention @NonNull who keeps the handler alive, see {@link HandlerRetention}.
+     * @return @NonNull the subscription handle.
+     */
+    @NonNull
+    public <T> Subscription subscribe(@NonNull Class<T> eventType, @NonNull DeliveryThread thread,
+                                      @NonNull EventHandler<? super T> handler, @NonNull HandlerRetention retention) {
+        assignThreadForTarget(handler);
+
+        HandlerSubscription subscription;
+        Set<Class<?>> added;
+        synchronized (mCurrentlyRegisteredSubscribersByEventType) {
+            purgeCollectedTargets();
+            TargetReference reference = mRegisteredTargets.get(new TargetReference(handler, null));
+            if (reference == null) {
+                reference = new TargetReference(handler, mCollectedTargets);
+            }
+            subscription = new HandlerSubscription(this, reference, handler, eventType, thread);
+            Map<Class<?>, Set<Subscriber>> found = Collections.<Class<?>, Set<Subscriber>>singletonMap(eventType,
+                    Collections.singleton(subscription.mSubscriber));
+            assignMailbox(reference, found);
+            added = addSubscribers(reference, found);
+            if (retention == HandlerRetention.STRONG) {
+                mStrongHandlers.put(subscription.mSubscriber, handler);
+            }
+            invalidateRoutes();
+        }
+
+        if (!added.isEmpty()) {
+            replayStickyEvents(handler, added);
+        }
+        return subscription;
+    }
+
+    /**
+     * End the subscription, see {@link Subscription#close()}.
+     */
+    void removeSubscription(@NonNull HandlerSubscription subscription) {
+        Subscriber subscriber = subscription.mSubscriber;
+        Class<?> eventType = subscriber.mMethodDesc.eventType;
+        synchronized (mCurrentlyRegisteredSubscribersByEventType) {
+            mStrongHandlers.remove(subscriber);
+            boolean changed = purgeCollectedTargets();
+            TargetReference reference = mRegisteredTargets.get((TargetReference) subscriber.mTarget);
+            List<Subscriber> own = reference != null ? reference.mSubscribers.get(eventType) : null;
+            int index = own != null ? own.indexOf(subscriber) : -1;
+            if (index >= 0) {
+                //remove the registered instance, equal subscriber of repeated subscribe is not in the registry
+                changed |= removeSubscribers(eventType, Collections.singletonList(own.remove(index)));
+                if (own.isEmpty()) {
+                    reference.mSubscribers.remove(eventType);
+                    if (reference.mSubscribers.isEmpty()) {
+                        mRegisteredTargets.remove(reference);
+                    }
+                }
+            }
+            if (changed) {
+                invalidateRoutes();
+            }
+        }
+    }
+
+    /**
+     * Add subscribers of the target to the registry.
+     * Have to be called with the mCurrentlyRegisteredSubscribersByEventType monitor held.
+     *
+     * @param reference @NonNull reference to the target, used if the target is not registered yet.
+     * @param found     @NonNull subscribers of the target, by event type.
+     * @return @NonNull event types of subscribers actually added, empty if all were registered already.
+     */
+    @NonNull
+    Set<Class<?>> addSubscribers(@NonNull TargetReference reference, @NonNull Map<Class<?>, Set<Subscriber>> found) {
+        Set<Class<?>> result = Collections.emptySet();
+        TargetReference registered = mRegisteredTargets.get(reference);
+        if (registered == null) {
+            mRegisteredTargets.put(reference, reference);
+            registered = reference;
+        }
+        for (Map.Entry<Class<?>, Set<Subscriber>> entry : found.entrySet()) {
+            Subscriber[] current = mCurrentlyRegisteredSubscribersByEventType.get(entry.getKey());
+            //skip subscribers registered already, checking subscribers of this target only
+            List<Subscriber> own = registered.mSubscribers.get(entry.getKey());
+            if (own == null) {
+                own = new ArrayList<Subscriber>(1);
+                registered.mSubscribers.put(entry.getKey(), own);
+            }
+            Set<Subscriber> added = entry.getValue();
+            int length = current != null ? current.length : 0;
+            Subscriber[] subscribers = new Subscriber[length + added.size()];
+            if (current != null) {
+                System.arraycopy(current, 0, subscribers, 0, length);
+            }
+            for (Subscriber subscriber : added) {
+                if (!own.contains(subscriber)) {
+                    own.add(subscriber);
+                    subscribers[length++] = subscriber;
+                }
+            }
+            if (length == (current != null ? current.length : 0)) {
+                //nothing added for this event type
+                continue;
+            }
+            if (length < subscribers.length) {
+                Subscriber[] trimmed = new Subscriber[length];
+                System.arraycopy(subscribers, 0, trimmed, 0, length);
+                subscribers = trimmed;
+            }
+            mCurrentlyRegisteredSubscribersByEventType.put(entry.getKey(), subscribers);
+            if (result.isEmpty()) {
+                result = new LinkedHashSet<Class<?>>();
+            }
+            result.add(entry.getKey());
+        }
+        return result;
+    }
+
+    /**
+     * Assign given target object to thread calling this method.
+     * Can re-assign default thread (AS_REGISTERED) for already registered object
+     *
+     * @param target @NonNull object to assign.
+     *               todo unit test
+     */
+    public void assignThreadForTarget(@NonNull Object target) {
+        mScheduler.assignThreadForTarget(target);
+    }
+
+    /**
+     * Unregister all subscriber methods on a registered {@code target}.
+     * While processing it will remove also all data for already garbage collected objects.
+     * <p/>
+     * Only event types subscribed by the target are touched, so the cost does not depend on number
+     * of other registered targets.
+     *
+     * @param target @Nullable object whose subscriber methods should be unregistered.
+     *               Pass null ro remove just garbage collected objects.
+     */
+    public void unregister(@Nullable Object target) {
+        synchronized (mCurrentlyRegisteredSubscribersByEventType) {
+            boolean changed = purgeCollectedTargets();
+            if (target != null) {
+                TargetReference reference = mRegisteredTargets.remove(new TargetReference(target, null));
+                if (reference != null) {
+                    changed |= removeSubscribers(reference);
+                }
+            }
+            if (changed) {
+                invalidateRoutes();
+            }
+        }
+
+        //Todo remove looper and probably Handler
+        //todo this can be delayed.
+//        Looper looper =
+    }
+
+    /**
+     * Posts an event to all registered subscribers.
+     * This method will initiate posting process, and return immediately.
+     * <p/>
+     * If no subscribers have been subscribed for {@code event}'s class, and {@code event} is not already a
+     * {@link DeadEvent}, it will be wrapped in a DeadEvent and reposted.
+     *
+     * @param event @NonNull event to post.
+     * @throws NullPointerException if the event is null.
+     */
+    public void post(@NonNull final Object event) {
+        post(event, PRIORITY_NORMAL);
+    }
+
+    /**
+     * Posts an event to all registered subscribers, with given priority.
+     * Works like {@link #post(Object)}, but the event overtakes waiting events of lower priority.
+     * Events of the same priority are dispatched in order.
+     * <p/>
+     * The {@link PartitionedExecutor} dispatcher executor ignores priorities, events are dispatched in order
+     * of posting, in every lane.
+     *
+     * @param event    @NonNull event to post.
+     * @param priority priority of the event, ex. {@link #PRIORITY_HIGH}. Higher is more urgent.
+     * @throws NullPointerException if the event is null.
+     */
+    public void post(@NonNull final Object event, int priority) {
+        Dispatcher dispatcher = Dispatcher.obtain(this, event, null);
+        dispatcher.mPriority = priority;
+        onPosted(dispatcher);
+        executeDispatcher(dispatcher);
+    }
+
+    /**
+     * Posts an event to all registered subscribers in one specific target object.
+     * This method will initiate posting process, and return immediately.
+     * <p/>
+     * If no subscribers have been subscribed for {@code event}'s class, and {@code event} is not already a
+     * {@link DeadEvent}, it will be wrapped in a DeadEvent and re-posted.
+     *
+     * @param event  @NonNull event to post.
+     * @param target @NonNull target to deliver event to. Target must be registered in bus already.
+     * @throws NullPointerException if the event is null.
+     *                              todo unit test
+     */
+    public void postToTarget(@NonNull final Object event, @NonNull Object target) {
+        postToTarget(event, target, PRIORITY_NORMAL);
+    }
+
+    /**
+     * Posts an event to all registered subscribers in one specific target object, with given priority.
+     * Works like {@link #postToTarget(Object, Object)}, but the event overtakes waiting events of lower priority.
+     *
+     * @param event    @NonNull event to post.
+     * @param target   @NonNull target to deliver event to. Target must be registered in bus already.
+     * @param priority priority of the event, ex. {@link #PRIORITY_HIGH}. Higher is more urgent.
+     * @throws NullPointerException if the event is null.
+     */
+    public void postToTarget(@NonNull final Object event, @NonNull Object target, int priority) {
+        Dispatcher dispatcher = Dispatcher.obtain(this, event, target);
+        dispatcher.mPriority = priority;
+        onPosted(dispatcher);
+        executeDispatcher(dispatcher);
+    }
+
+    /**
+     * Posts an event to all registered subscribers after given number of miliseconds. Target must be
+     * registered after requested time passes, so it is possible to deliver to target that was not registered
+     * while postDelayed() was called.
+     * This method will initiate posting process, and return immediately.
+     * <p/>
+     * If no subscribers have been subscribed for {@code event}'s class, and {@code event} is not already a
+     * {@link DeadEvent}, it will be wrapped in a DeadEvent and reposted.
+     *
+     * @param event       @NonNull event to post.
+     * @param miliseconds delay in miliseconds
+     * @return @NonNull handle to cancel or reschedule the post.
+     * @throws NullPointerException if the event is null.
+     */
+    @NonNull
+    public PendingPost postDelayed(@NonNull final Object event, long miliseconds) {
+        Dispatcher dispatcher = Dispatcher.obtain(this, event, null);
+        onPosted(dispatcher);
+        return executeDelayed(dispatcher, miliseconds);
+    }
+
+    /**
+     * Posts an event to all registered subscribers in one specific target object, after given number
+     * of milliseconds.Target must be registered after requested time passes, so it is possible to
+     * deliver to target that was not registered while postDelayed() was called.
+     * This method will initiate posting process, and return immediately.
+     * <p/>
+     * If no subscribers have been subscribed for {@code event}'s class, and {@code event} is not already a
+     * {@link DeadEvent}, it will be wrapped in a DeadEvent and re-posted.
+     *
+     * @param event        @NonNull event to post.
+     * @param target       @NonNull target to deliver event to. Target must be registered in bus already.
+     * @param milliseconds delay in milliseconds
+     * @return @NonNull handle to cancel or reschedule the post.
+     * @throws NullPointerException if the event is null.
+     *                              todo unit test
+     */
+    @NonNull
+    public PendingPost postToTargetDelayed(@NonNull final Object event, @NonNull Object target, long milliseconds) {
+        Dispatcher dispatcher = Dispatcher.obtain(this, event, target);
+        onPosted(dispatcher);
+        return executeDelayed(dispatcher, milliseconds);
+    }
+
+    /**
+     * Send an event to all registered subscribers.
+     * This method will process all dispatch code in caller thread. It means that Thread.DISPATCHER subscribers
+     * will have to finish before control will be returned to caller.
+     * <p/>
+     * If no subscribers have been subscribed for {@code event}'s class, and {@code event} is not already a
+     * {@link DeadEvent}, it will be wrapped in a DeadEvent and reposted.
+     *
+     * @param event @NonNull event to post.
+     * @throws NullPointerException if the event is null.
+     */
+    public void send(@NonNull final Object event) {
+        Dispatcher dispatcher = Dispatcher.obtain(this, event, null);
+        onPosted(dispatcher);
+        dispatcher.run();
+    }
+
+    /**
+     * Send an event to all registered subscribers in one specific target object.
+     * This method will process all dispatch code in caller thread. It means that Thread.DISPATCHER subscribers
+     * will have to finish before control will be returned to caller.
+     * <p/>
+     * If no subscribers have been subscribed for {@code event}'s class, and {@code event} is not already a
+     * {@link DeadEvent}, it will be wrapped in a DeadEvent and re-posted.
+     *
+     * @param event  @NonNull event to post.
+     * @param target @NonNull target to deliver event to. Target must be registered in bus already.
+     * @throws NullPointerException if the event is null.
+     *                              todo unit test
+     */
+    public void sendToTarget(@NonNull final Object event, @NonNull Object target) {
+        Dispatcher dispatcher = Dispatcher.obtain(this, event, target);
+        onPosted(dispatcher);
+        dispatcher.run();
+    }
+
+    /**
+     * Posts a batch of events to all registered subscribers.
+     * This method will initiate posting process, and return immediately.
+     * <p/>
+     * Works like calling {@link #post(Object)} for every event, but the whole batch is passed to the dispatcher
+     * thread at once, and for every delivery thread there is just one task delivering all events of the batch,
+     * in order. Note that it means that the DeliveryThread.BACKGROUND subscribers will get events of the batch
+     * one by one, in one background thread.
+     * <p/>
+     * If no subscribers have been subscribed for {@code event}'s class, and {@code event} is not already a
+     * {@link DeadEvent}, it will be wrapped in a DeadEvent and reposted.
+     *
+     * @param events @NonNull events to post. Collection is copied, caller can reuse it.
+     * @throws NullPointerException if the events collection, or any event, is null.
+     */
+    public void postAll(@NonNull final Collection<?> events) {
+        Object[] batch = toBatch(events);
+        if (batch.length > 0) {
+            Dispatcher dispatcher = Dispatcher.obtainBatch(this, batch, null);
+            onPosted(dispatcher);
+            executeDispatcher(dispatcher);
+        }
+    }
+
+    /**
+     * Send a batch of events to all registered subscribers.
+     * This method will process all dispatch code in caller thread, like the {@link #send(Object)} does,
+     * and deliver to other threads like the {@link #postAll(Collection)} does.
+     * <p/>
+     * If no subscribers have been subscribed for {@code event}'s class, and {@code event} is not already a
+     * {@link DeadEvent}, it will be wrapped in a DeadEvent and reposted.
+     *
+     * @param events @NonNull events to send.
+     * @throws NullPointerException if the events collection, or any event, is null.
+     */
+    public void sendAll(@NonNull final Collection<?> events) {
+        Object[] batch = toBatch(events);
+        if (batch.length > 0) {
+            Dispatcher dispatcher = Dispatcher.obtainBatch(this, batch, null);
+            onPosted(dispatcher);
+            dispatcher.run();
+        }
+    }
+
+    /**
+     * Posts a sticky event to all registered subscribers.
+     * Works like {@link #post(Object)}, but the event is also kept as the current value for its class, until
+     * replaced by next sticky event of the same class, or removed by {@link #removeSticky(Class)}.
+     * Each object registered later will receive current sticky events, for all its subscribers that can
+     * handle them, in threads the subscribers declared.
+     * <p/>
+     * Note: if an object is registered at the same time when sticky event is posted, it may receive the event twice.
+     *
+     * @param event @NonNull event to post.
+     * @throws NullPointerException if the event is null.
+     */
+    public void postSticky(@NonNull final Object event) {
+        Class<?> eventClass = event.getClass();
+        synchronized (mStickyEvents) {
+            if (mStickyEvents.put(eventClass, event) == null) {
+                //new sticky class, index it for all types the event can be delivered as
+                for (Class<?> type : Dispatcher.getEventClasses(eventClass)) {
+                    Set<Class<?>> classes = mStickyClassesByEventType.get(type);
+                    if (classes == null) {
+                        classes = new HashSet<Class<?>>();
+                        mStickyClassesByEventType.put(type, classes);
+                    }
+                    classes.add(eventClass);
+                }
+            }
+        }
+        post(event);
+    }
+
+    /**
+     * Get current sticky event of given class.
+     *
+     * @param eventClass @NonNull the exact class of the event.
+     * @return the latest event passed to {@link #postSticky(Object)}, or null if there is no such event.
+     */
+    @Nullable
+    public <T> T getSticky(@NonNull Class<T> eventClass) {
+        synchronized (mStickyEvents) {
+            return eventClass.cast(mStickyEvents.get(eventClass));
+        }
+    }
+
+    /**
+     * Remove current sticky event of given class. Objects registered later will not receive it.
+     *
+     * @param eventClass @NonNull the exact class of the event.
+     * @return removed event, or null if there was no sticky event of given class.
+     */
+    @Nullable
+    public <T> T removeSticky(@NonNull Class<T> eventClass) {
+        synchronized (mStickyEvents) {
+            Object result = mStickyEvents.remove(eventClass);
+            if (result != null) {
+                for (Class<?> type : Dispatcher.getEventClasses(eventClass)) {
+                    Set<Class<?>> classes = mStickyClassesByEventType.get(type);
+                    if (classes != null) {
+                        classes.remove(eventClass);
+                        if (classes.isEmpty()) {
+                            mStickyClassesByEventType.remove(type);
+                        }
+                    }
+                }
+            }
+            return eventClass.cast(result);
+        }
+    }
+
+    /**
+     * Remove all sticky events.
+     */
+    public void removeAllStickyEvents() {
+        synchronized (mStickyEvents) {
+            mStickyEvents.clear();
+            mStickyClassesByEventType.clear();
+        }
+    }
+
+    /**
+     * Enable or disable collecting of the bus statistics.
+     * Stats are disabled by default. Disabled stats cost one volatile read per event and per delivery.
+     * Enabling already enabled stats keeps current numbers, enabling disabled stats starts from zero.
+     *
+     * @param enabled true to collect stats.
+     */
+    public synchronized void setStatsEnabled(boolean enabled) {
+        if (!enabled) {
+            mStats = null;
+        } else if (mStats == null) {
+            mStats = new EventBusStats(this);
+        }
+    }
+
+    /**
+     * Install the tracer, listening to the event lifecycle: posts, dispatches and deliveries, with correlation IDs.
+     * Without the tracer, the bus does not track correlation IDs at all.
+     *
+     * @param tracer @Nullable the tracer, null to remove the current one.
+     */
+    public void setTracer(@Nullable EventTracer tracer) {
+        mTracer = tracer;
+    }
+
+    /**
+     * Watch UI and DISPATCHER subscribers, and report ones running longer than the budget to
+     * {@link #onSlowSubscriber(SlowSubscriberException)}. Such subscriber blocks the UI thread, or the dispatcher thread.
+     * <p/>
+     * The watchdog samples running deliveries in its own thread, every half of the budget, and sleeps while none
+     * is running. Disabled watchdog costs one volatile read per delivery.
+     *
+     * @param milliseconds the budget, 0 to disable the watchdog.
+     */
+    public synchronized void setSlowSubscriberBudget(long milliseconds) {
+        if (milliseconds < 0) {
+            throw new IllegalArgumentException("Budget must not be negative");
+        }
+        if (mWatchdog != null) {
+            mWatchdog.stop();
+            mWatchdog = null;
+        }
+        if (milliseconds > 0) {
+            mWatchdog = new SubscriberWatchdog(this, milliseconds);
+        }
+    }
+
+    /**
+     * Get statistics of the bus: per event type counters, queue depths and latency histograms.
+     *
+     * @return the live stats, or null if stats are disabled, see {@link #setStatsEnabled(boolean)}.
+     */
+    @Nullable
+    public EventBusStats getStats() {
+        return mStats;
+    }
+
+    /**
+     * Get number of events dropped by this bus, because subscriber delivery queue was full.
+     * See {@link Subscribe#capacity()}.
+     */
+    public long getDroppedEventCount() {
+        return mDroppedEventCount.get();
+    }
+
+    /**
+     * Adds compile-time generated index of subscriber methods.
+     * Indexed classes are not scanned using reflection when registered for the first time.
+     * <p/>
+     * Index is shared by all bus instances. It should be added before any object of indexed class is registered,
+     * preferably in Application.onCreate().
+     *
+     * @param index @NonNull index to add, usually generated by the async_event_bus_processor.
+     */
+    public static void addIndex(@NonNull SubscriberIndex index) {
+        mSubscriberIndexes.add(index);
+    }
+
+    //////////////////////////////////////////////////////////////////////////////////////////
+    // for descendants
+
+    /**
+     * Handles the given exception thrown by a subscriber with the given context.
+     */
+    protected void onSubscriberException(@NonNull Object target, @NonNull Method method, @NonNull Throwable exception) {
+        //by default just print it to log.
+        exception.printStackTrace();
+    }
+
+    /**
+     * Called when UI or DISPATCHER subscriber runs longer than the budget, see {@link #setSlowSubscriberBudget(long)}.
+     * Each slow delivery is reported once, while it is still running.
+     * <p/>
+     * Called in the watchdog thread.
+     *
+     * @param report @NonNull the subscriber, the event class, elapsed time, and the stack of the delivery thread.
+     */
+    protected void onSlowSubscriber(@NonNull SlowSubscriberException report) {
+        //by default just print it to log.
+        report.printStackTrace();
+    }
+
+    //////////////////////////////////////////////////////////////////////////////////////////
+    // implementation
+
+    /**
+     * Class name of the Android Scheduler, from the async_event_bus_lib.
+     */
+    static final String ANDROID_SCHEDULER_CLASS = "com.pgssoft.async_event_bus.HandlerScheduler";
+
+    /**
+     * Class present on Android only, the Android Scheduler is required if it is present.
+     */
+    static final String ANDROID_LOOPER_CLASS = "android.os.Looper";
+
+    /**
+     * Provides all threads but background ones.
+     */
+    @NonNull
+    final Scheduler mScheduler;
+
+    /**
+     * A Thread for events processing, by default one lane of a shared {@link DispatcherPool}.
+     * Event passed to post() methods will be processed in this thread, then delivered in this thread,
+     * or background thread, or UI thread.
+     */
+    @NonNull
+    final Executor mDispatcherExecutor;
+
+    /**
+     * Mailbox ordering waiting events by priority, executed by the mDispatcherExecutor.
+     * Null if the dispatcher executor is a {@link PartitionedExecutor}, it ignores priorities.
+     */
+    @Nullable
+    final Mailbox mDispatcherMailbox;
+
+    /**
+     * Set when the first runnable of priority other than PRIORITY_NORMAL is passed to the dispatcher thread.
+     * Until then runnables go directly to the mDispatcherExecutor, without the Mailbox lock and allocations,
+     * from then on all go through the mDispatcherMailbox, so events of one priority keep their order.
+     */
+    volatile boolean mPrioritized;
+
+    /**
+     * The UI thread executor.
+     * Some subscribers have to be called in this thread.
+     */
+    @NonNull
+    final Executor mUiExecutor;
+
+    /**
+     * Executor responsible for managing background threads.
+     */
+    @NonNull
+    final Executor mBackgroundExecutor;
+
+    /**
+     * one, shared instance of Executor, used as mBackgroundExecutor in case if application didn't provided any.
+     */
+    static Executor mDefaultExecutor;
+
+    /**
+     * Executor for DeliveryThread.VIRTUAL subscribers, the shared virtual thread executor,
+     * or the mBackgroundExecutor if virtual threads are not supported.
+     */
+    @NonNull
+    final Executor mVirtualThreadExecutor;
+
+    /**
+     * Executor starting new virtual thread for every runnable, shared by all buses.
+     * Resolved on first use, mVirtualThreadExecutorResolved is set even if virtual threads are not supported.
+     */
+    static Executor mSharedVirtualThreadExecutor;
+    static boolean mVirtualThreadExecutorResolved;
+
+    /**
+     * Timer for delayed posts, shared by all buses, created on first use.
+     */
+    static TimingWheel mTimer;
+
+    /**
+     * Precision of delayed posts.
+     */
+    static final long TIMER_TICK_MILLIS = 10;
+
+    /**
+     * Number of ticks in one round of the timer wheel.
+     */
+    static final int TIMER_WHEEL_SIZE = 512;
+
+
+    /**
+     * Identifier used to differentiate the event bus instance.
+     */
+    final String mName;
+
+    /**
+     * All registered subscribers, indexed by event type.
+     * Arrays are never modified, each change replaces the array.
+     * Changes are guarded by the map monitor, reads are lock-free.
+     */
+    final Map<Class<?>, Subscriber[]> mCurrentlyRegisteredSubscribersByEventType = new ConcurrentHashMap<Class<?>, Subscriber[]>();
+
+    /**
+     * Reverse index of mCurrentlyRegisteredSubscribersByEventType: registered targets, and event types they subscribe.
+     * Guarded by the mCurrentlyRegisteredSubscribersByEventType monitor.
+     */
+    final Map<TargetReference, TargetReference> mRegisteredTargets = new HashMap<TargetReference, TargetReference>();
+
+    /**
+     * Handlers of strongly retained subscriptions, kept reachable until the subscription is closed.
+     * Key: the subscriber of the handler
+     * Value: the handler
+     * Guarded by the mCurrentlyRegisteredSubscribersByEventType monitor.
+     */
+    final Map<Subscriber, Object> mStrongHandlers = new HashMap<Subscriber, Object>();
+
+    /**
+     * References of garbage collected targets, their subscribers are removed on next register or unregister.
+     */
+    final ReferenceQueue<Object> mCollectedTargets = new ReferenceQueue<Object>();
+
+    /**
+     * Routing table, all subscribers for given concrete event class, including subscribers for all
+     * super classes and interfaces of the event class, in one flat array.
+     * Routes are computed lazily, on first dispatch of given event class. The whole table is replaced
+     * by an empty one on every register/unregister.
+     */
+    volatile ConcurrentHashMap<Class<?>, Subscriber[]> mRoutes = new ConcurrentHashMap<Class<?>, Subscriber[]>();
+
+    static final Subscriber[] NO_SUBSCRIBERS = new Subscriber[0];
+
+    /**
+     * Statistics of the bus, null if disabled.
+     */
+    @Nullable
+    volatile EventBusStats mStats;
+
+    /**
+     * Tracer of the event lifecycle, null if not installed.
+     */
+    @Nullable
+    volatile EventTracer mTracer;
+
+    /**
+     * Watchdog of slow subscribers, null if disabled.
+     */
+    @Nullable
+    volatile SubscriberWatchdog mWatchdog;
+
+    /**
+     * Source of correlation IDs, shared by all buses, so the cascade can span buses.
+     */
+    static final AtomicLong mNextTraceId = new AtomicLong();
+
+    /**
+     * Correlation ID of the event handled by the current thread, 0 if none. Used while tracer is installed only.
+     */
+    static final ThreadLocal<long[]> mCurrentTraceId = new ThreadLocal<long[]>() {
+        @Override
+        protected long[] initialValue() {
+            return new long[1];
+        }
+    };
+
+    /**
+     * Number of events dropped because subscriber delivery queue was full.
+     */
+    final AtomicLong mDroppedEventCount = new AtomicLong();
+
+    /**
+     * Current sticky events.
+     * Key: the exact event class
+     * Value: the latest sticky event of this class.
+     * Both sticky maps are guarded by this map monitor.
+     */
+    final Map<Class<?>, Object> mStickyEvents = new HashMap<Class<?>, Object>();
+
+    /**
+     * Index of sticky events.
+     * Key: any class/interface of sticky event (see {@link Dispatcher#getEventClasses(Class)})
+     * Value: exact classes of sticky events, that can be delivered to subscribers of the key type.
+     */
+    final Map<Class<?>, Set<Class<?>>> mStickyClassesByEventType = new HashMap<Class<?>, Set<Class<?>>>();
+
+    /**
+     * Get subscribers registered for exactly given event type.
+     */
+    @NonNull
+    Subscriber[] getSubscribersForEventType(@NonNull Class<?> type) {
+        Subscriber[] result = mCurrentlyRegisteredSubscribersByEventType.get(type);
+        return result != null ? result : NO_SUBSCRIBERS;
+    }
+
+    /**
+     * Get all subscribers that can handle event of given class.
+     * Lock-free, after the first call for given class it costs one map lookup.
+     */
+    @NonNull
+    Subscriber[] getSubscribersForEventClass(@NonNull Class<?> eventClass) {
+        //the routes should be read once, if table is replaced meanwhile, we will store route in the old one.
+        ConcurrentHashMap<Class<?>, Subscriber[]> routes = mRoutes;
+        Subscriber[] result = routes.get(eventClass);
+        if (result == null) {
+            List<Subscriber> subscribers = new ArrayList<Subscriber>();
+            for (Class<?> clazz : Dispatcher.getEventClasses(eventClass)) {
+                Collections.addAll(subscribers, getSubscribersForEventType(clazz));
+            }
+            result = subscribers.isEmpty() ? NO_SUBSCRIBERS : subscribers.toArray(new Subscriber[subscribers.size()]);
+            routes.put(eventClass, result);
+        }
+        return result;
+    }
+
+    /**
+     * Deliver current sticky events to newly registered target.
+     * Only sticky events that can be handled by the target are looked up, the whole store is never scanned.
+     *
+     * @param eventTypes all event types that target subscribes.
+     */
+    void replayStickyEvents(@NonNull Object target, @NonNull Set<Class<?>> eventTypes) {
+        List<Object> events = null;
+        synchronized (mStickyEvents) {
+            if (mStickyEvents.isEmpty()) return;
+
+            Set<Class<?>> stickyClasses = null;
+            for (Class<?> eventType : eventTypes) {
+                Set<Class<?>> classes = mStickyClassesByEventType.get(eventType);
+                if (classes == null) continue;
+                if (stickyClasses == null) {
+                    stickyClasses = new LinkedHashSet<Class<?>>();
+                }
+                stickyClasses.addAll(classes);
+            }
+            if (stickyClasses == null) return;
+
+            events = new ArrayList<Object>(stickyClasses.size());
+            for (Class<?> stickyClass : stickyClasses) {
+                events.add(mStickyEvents.get(stickyClass));
+            }
+        }
+
+        Dispatcher dispatcher = Dispatcher.obtainBatch(this, events.toArray(), target);
+        dispatcher.mSticky = true;
+        executeDispatcher(dispatcher);
+    }
+
+    /**
+     * Pass the dispatcher to the dispatcher thread after given number of milliseconds.
+     * Delays are measured by one timer thread shared by all buses, so any dispatcher executor can be used.
+     * Cancelled dispatcher is not returned to the pool, it is just left for the GC.
+     */
+    @NonNull
+    PendingPost executeDelayed(@NonNull final Dispatcher dispatcher, long milliseconds) {
+        return getTimer().schedule(new Runnable() {
+            @Override
+            public void run() {
+                if (dispatcher.mPostTime != 0) {
+                    //measure the dispatch latency, not the delay
+                    dispatcher.mPostTime = System.nanoTime();
+                }
+                executeDispatcher(dispatcher);
+            }
+        }, milliseconds);
+    }
+
+    /**
+     * Pass the dispatcher to the dispatcher thread.
+     */
+    void executeDispatcher(@NonNull Dispatcher dispatcher) {
+        EventBusStats stats = mStats;
+        if (stats != null) {
+            stats.onDispatcherQueued();
+            dispatcher.mQueuedStats = stats;
+        }
+        executeOnDispatcherThread(dispatcher, dispatcher.mPriority);
+    }
+
+    /**
+     * Pass the runnable to the dispatcher thread, through the mDispatcherMailbox if priorities are in use.
+     */
+    void executeOnDispatcherThread(@NonNull Runnable runnable, int priority) {
+        Mailbox mailbox = mDispatcherMailbox;
+        if (mailbox != null && (mPrioritized || priority != PRIORITY_NORMAL)) {
+            if (!mPrioritized) {
+                mPrioritized = true;
+            }
+            mailbox.execute(runnable, priority);
+        } else {
+            mDispatcherExecutor.execute(runnable);
+        }
+    }
+
+    /**
+     * Count and trace the posted event, or a batch, if stats or tracer are enabled.
+     */
+    void onPosted(@NonNull Dispatcher dispatcher) {
+        EventBusStats stats = mStats;
+        if (stats != null) {
+            if (dispatcher.mEvents == null) {
+                stats.onPosted(dispatcher.mEvent);
+            } else {
+                for (Object event : dispatcher.mEvents) {
+                    stats.onPosted(event);
+                }
+            }
+        }
+        EventTracer tracer = mTracer;
+        if (tracer != null) {
+            if (dispatcher.mEvents == null) {
+                tracer.onPosted(dispatcher.mTraceId, dispatcher.mEvent);
+            } else {
+                for (Object event : dispatcher.mEvents) {
+                    tracer.onPosted(dispatcher.mTraceId, event);
+                }
+            }
+        }
+    }
+
+    /**
+     * Get correlation ID for a new post: the ID of the event handled by the current thread, or a new one.
+     */
+    static long getTraceId() {
+        long[] current = mCurrentTraceId.get();
+        return current[0] != 0 ? current[0] : mNextTraceId.incrementAndGet();
+    }
+
+    /**
+     * Get the executor starting new virtual thread for every runnable.
+     * Found using reflection, to keep the bus source compatible with Java 6 and Android.
+     *
+     * @return the executor, or null if JVM does not support virtual threads.
+     */
+    @Nullable
+    static synchronized Executor getVirtualThreadExecutor() {
+        if (!mVirtualThreadExecutorResolved) {
+            mVirtualThreadExecutorResolved = true;
+            try {
+                Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                mSharedVirtualThreadExecutor = (Executor) factory.invoke(null);
+            } catch (Exception e) {
+                //not supported, or disabled
+                mSharedVirtualThreadExecutor = null;
+            }
+        }
+        return mSharedVirtualThreadExecutor;
+    }
+
+    @NonNull
+    static synchronized TimingWheel getTimer() {
+        if (mTimer == null) {
+            mTimer = new TimingWheel("EventBus.Timer", TIMER_TICK_MILLIS, TIMER_WHEEL_SIZE);
+        }
+        return mTimer;
+    }
+
+    /**
+     * Give the Mailbox of the target to all its DeliveryThread.BACKGROUND_SERIAL subscribers.
+     * All subscribers of the target share the reference, so they share the Mailbox,
+     * no matter if they were registered or subscribed, at once or one by one.
+     */
+    void assignMailbox(@NonNull TargetReference reference, @NonNull Map<Class<?>, Set<Subscriber>> subscribers) {
+        for (Set<Subscriber> set : subscribers.values()) {
+            for (Subscriber subscriber : set) {
+                if (subscriber.mThread != DeliveryThread.BACKGROUND_SERIAL) continue;
+                subscriber.mMailbox = reference.getMailbox(mBackgroundExecutor);
+            }
+        }
+    }
+
+    /**
+     * Remove subscribers of given target, from event types it subscribes only.
+     * Subscribers are matched by identity, so it works for garbage collected targets too,
+     * and it does not have to touch subscribers of other targets.
+     * Have to be called with the mCurrentlyRegisteredSubscribersByEventType monitor held.
+     *
+     * @return true if anything was removed, routes have to be invalidated.
+     */
+    boolean removeSubscribers(@NonNull TargetReference reference) {
+        boolean changed = false;
+        for (Map.Entry<Class<?>, List<Subscriber>> entry : reference.mSubscribers.entrySet()) {
+            for (Subscriber subscriber : entry.getValue()) {
+                mStrongHandlers.remove(subscriber);
+            }
+            changed |= removeSubscribers(entry.getKey(), entry.getValue());
+        }
+        return changed;
+    }
+
+    /**
+     * Remove given subscribers, registered for given event type. Their deferred events are dropped.
+     * Have to be called with the mCurrentlyRegisteredSubscribersByEventType monitor held.
+     *
+     * @param own @NonNull the registered instances to remove.
+     * @return true if anything was removed, routes have to be invalidated.
+     */
+    boolean removeSubscribers(@NonNull Class<?> eventType, @NonNull List<Subscriber> own) {
+        for (int i = 0, size = own.size(); i < size; i++) {
+            own.get(i).onRemoved();
+        }
+        Subscriber[] current = mCurrentlyRegisteredSubscribersByEventType.get(eventType);
+        if (current == null) return false;
+        //compare references only, without touching subscribers of other targets
+        Subscriber[] subscribers = new Subscriber[current.length];
+        int length = 0;
+        for (Subscriber subscriber : current) {
+            if (!containsInstance(own, subscriber)) {
+                subscribers[length++] = subscriber;
+            }
+        }
+        if (length == current.length) return false;
+
+        if (length == 0) {
+            mCurrentlyRegisteredSubscribersByEventType.remove(eventType);
+        } else {
+            Subscriber[] trimmed = new Subscriber[length];
+            System.arraycopy(subscribers, 0, trimmed, 0, length);
+            mCurrentlyRegisteredSubscribersByEventType.put(eventType, trimmed);
+        }
+        return true;
+    }
+
+    static boolean containsInstance(@NonNull List<Subscriber> subscribers, @NonNull Subscriber subscriber) {
+        for (int i = 0, size = subscribers.size(); i < size; i++) {
+            if (subscribers.get(i) == subscriber) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Remove subscribers of targets garbage collected since the last call, as reported by the mCollectedTargets.
+     * Have to be called with the mCurrentlyRegisteredSubscribersByEventType monitor held.
+     *
+     * @return true if anything was removed, routes have to be invalidated.
+     */
+    boolean purgeCollectedTargets() {
+        boolean changed = false;
+        Reference<?> reference;
+        while ((reference = mCollectedTargets.poll()) != null) {
+            TargetReference collected = (TargetReference) reference;
+            if (mRegisteredTargets.remove(collected) != null) {
+                changed |= removeSubscribers(collected);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Drops all computed routes. Have to be called after every change in the mCurrentlyRegisteredSubscribersByEventType.
+     */
+    void invalidateRoutes() {
+        mRoutes = new ConcurrentHashMap<Class<?>, Subscriber[]>();
+    }
+
+    /**
+     * Cache event bus subscriber methods for each registered class, and for its superclasses.
+     * This will speed-up registering another objects of given class, or of its subclasses, with any EventBus instance.
+     * <p/>
+     * Entries are computed without locks. Concurrent computations of the same class give the same result,
+     * the first stored one is used.
+     * <p/>
+     * First key: listener class
+     * Second key: event class
+     * Value: set of Method's, declared and inherited
+     */
+    static final ConcurrentHashMap<Class<?>, Map<Class<?>, MethodDescLinkedListItem>> mSubscriberMethodsCache = new ConcurrentHashMap<Class<?>, Map<Class<?>, MethodDescLinkedListItem>>();
+
+    static final Map<Class<?>, MethodDescLinkedListItem> NO_METHODS = Collections.emptyMap();
+
+    /**
+     * Compile-time generated indexes of subscriber methods, checked before the reflection scan.
+     */
+    static final List<SubscriberIndex> mSubscriberIndexes = new CopyOnWriteArrayList<SubscriberIndex>();
+
+    /**
+     * Copy events to array, checking for nulls in caller thread.
+     */
+    @NonNull
+    static Object[] toBatch(@NonNull Collection<?> events) {
+        Object[] result = events.toArray();
+        for (Object event : result) {
+            if (event == null) {
+                throw new NullPointerException("Batch contains null event.");
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "EventBus[" + mName + "]";
+    }
+
+    /**
+     * Load all methods annotated with {@link Subscribe} into their respective caches for the
+     * specified class.
+     */
+    static Map<Class<?>, MethodDescLinkedListItem> scanForSubscriberMethods(@NonNull final Class<?> listenerClass) {
+        Map<Class<?>, MethodDescLinkedListItem> result = new HashMap<Class<?>, MethodDescLinkedListItem>();
+
+        for (Method method : listenerClass.getDeclaredMethods()) {
+            // The compiler sometimes creates synthetic bridge methods as part of the
+            // type erasure process. As of JDK8 these methods now include the same
+            // annotations as the original declarations. They should be ignored for
+            // subscribe/produce.
+            if (method.isBridge()) {
+                continue;
+            }
+            if (method.isAnnotationPresent(Subscribe.class)) {
+                Class<?>[] parameterTypes = method.getParameterTypes();
+                if (parameterTypes.length != 1) {
+                    throw new IllegalArgumentException("Method " + method + " has @Subscribe annotation but requires "
+                            + parameterTypes.length + " arguments.  Methods must require a single argument.");
+                }
+
+                //most probably here would be 1 item only, no one register in one object many subscribers for same event...
+                Class<?> eventType = parameterTypes[0];
+                result.put(eventType, new MethodDescLinkedListItem(method,
+                        new SubscriberMethodInfo(method, method.getAnnotation(Subscribe.class)), result.get(eventType)));
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Load all methods of the specified class from the first index that knows this class.
+     *
+     * @return methods map, same as {@link #scanForSubscriberMethods(Class)} returns, or null if class is not indexed.
+     */
+    @Nullable
+    static Map<Class<?>, MethodDescLinkedListItem> findIndexedSubscriberMethods(@NonNull final Class<?> listenerClass) {
+        for (SubscriberIndex index : mSubscriberIndexes) {
+            SubscriberMethodInfo[] infos = index.getSubscriberMethods(listenerClass);
+            if (infos == null) continue;
+
+            Map<Class<?>, MethodDescLinkedListItem> result = new HashMap<Class<?>, MethodDescLinkedListItem>();
+            for (SubscriberMethodInfo info : infos) {
+                result.put(info.mEventType, new MethodDescLinkedListItem(listenerClass, info, result.get(info.mEventType)));
+            }
+            return result;
+        }
+        return null;
+    }
+
+    /**
+     * Get all subscriber methods of the class, declared and inherited, from the cache.
+     * Computes them if needed, outside of any lock, so scan of one class does not block registering of other classes.
+     */
+    @NonNull
+    static Map<Class<?>, MethodDescLinkedListItem> getSubscriberMethods(@NonNull Class<?> listenerClass) {
+        Map<Class<?>, MethodDescLinkedListItem> result = mSubscriberMethodsCache.get(listenerClass);
+        if (result == null) {
+            result = findSubscriberMethods(listenerClass);
+            Map<Class<?>, MethodDescLinkedListItem> stored = mSubscriberMethodsCache.putIfAbsent(listenerClass, result);
+            if (stored != null) {
+                result = stored;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Find subscriber methods declared in the class, and merge them with cached methods of the superclass.
+     * Method of superclass is hidden by the method of the same name and event type declared in the class,
+     * it is an override, so it would be called twice otherwise.
+     * Private methods, and package-private methods from other package, are not overridden, so they are not hidden.
+     * System classes are not scanned, they have no subscriber methods.
+     */
+    @NonNull
+    static Map<Class<?>, MethodDescLinkedListItem> findSubscriberMethods(@NonNull Class<?> listenerClass) {
+        //compile-time index first, reflection only for classes that are not indexed.
+        Map<Class<?>, MethodDescLinkedListItem> declared = findIndexedSubscriberMethods(listenerClass);
+        if (declared == null) {
+            declared = scanForSubscriberMethods(listenerClass);
+        }
+
+        Class<?> superclass = listenerClass.getSuperclass();
+        Map<Class<?>, MethodDescLinkedListItem> inherited = superclass == null || isSystemClass(superclass)
+                ? NO_METHODS : getSubscriberMethods(superclass);
+        if (inherited.isEmpty()) {
+            return declared.isEmpty() ? NO_METHODS : declared;
+        }
+        if (declared.isEmpty()) {
+            //share the superclass entry
+            return inherited;
+        }
+
+        Map<Class<?>, MethodDescLinkedListItem> result = new HashMap<Class<?>, MethodDescLinkedListItem>(declared);
+        for (Map.Entry<Class<?>, MethodDescLinkedListItem> entry : inherited.entrySet()) {
+            MethodDescLinkedListItem own = declared.get(entry.getKey());
+            MethodDescLinkedListItem list = result.get(entry.getKey());
+            for (MethodDescLinkedListItem item = entry.getValue(); item != null; item = item.next) {
+                if (!containsOverride(own, item)) {
+                    //cached lists are shared, so items are copied, never relinked
+                    list = item.copy(list);
+                }
+            }
+            result.put(entry.getKey(), list);
+        }
+        return result;
+    }
+
+    /**
+     * Check if the list contains a method overriding the inherited one.
+     * Modifiers are checked only for methods with matching name and event type, so indexed methods are resolved only then.
+     */
+    static boolean containsOverride(@Nullable MethodDescLinkedListItem list, @NonNull MethodDescLinkedListItem inherited) {
+        for (MethodDescLinkedListItem item = list; item != null; item = item.next) {
+            if (item.eventType == inherited.eventType && item.name.equals(inherited.name)
+                    && isOverride(item.getMethod(), inherited.getMethod())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean isOverride(@NonNull Method method, @NonNull Method inherited) {
+        int modifiers = method.getModifiers();
+        int inheritedModifiers = inherited.getModifiers();
+        if (Modifier.isPrivate(modifiers) || Modifier.isPrivate(inheritedModifiers)) {
+            return false;
+        }
+        if (!Modifier.isPublic(inheritedModifiers) && !Modifier.isProtected(inheritedModifiers)) {
+            //package-private
+            return getPackageName(method.getDeclaringClass()).equals(getPackageName(inherited.getDeclaringClass()));
+        }
+        return true;
+    }
+
+    @NonNull
+    static String getPackageName(@NonNull Class<?> clazz) {
+        String name = clazz.getName();
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? "" : name.substring(0, dot);
+    }
+
+    static boolean isSystemClass(@NonNull Class<?> clazz) {
+        String name = clazz.getName();
+        return name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("android.")
+                || name.startsWith("androidx.") || name.startsWith("kotlin.");
+    }
+
+    /**
+     * This method finds all methods marked with a {@link Subscribe} annotation in passed "target" object.
+     * Returned map Key is event class, value is set of Subscriber's that can handle this event class.
+     */
+    @NonNull
+    static Map<Class<?>, Set<Subscriber>> findAllSubscribers(@NonNull final Object target) {
+        return findAllSubscribers(target, new WeakReference<Object>(target));
+    }
+
+    /**
+     * @param reference @NonNull reference to the target, shared by all found Subscribers.
+     */
+    @NonNull
+    static Map<Class<?>, Set<Subscriber>> findAllSubscribers(@NonNull final Object target, @NonNull WeakReference<Object> reference) {
+        Map<Class<?>, MethodDescLinkedListItem> methods = getSubscriberMethods(target.getClass());
+
+        Map<Class<?>, Set<Subscriber>> result = new HashMap<Class<?>, Set<Subscriber>>();
+        //Key: event class
+        //Value: set of @Subscribe methods that can handle this event class.
+        for (Map.Entry<Class<?>, MethodDescLinkedListItem> e : methods.entrySet()) {
+            Set<Subscriber> subscribers = new HashSet<Subscriber>();
+            for(MethodDescLinkedListItem methodDesc= e.getValue(); methodDesc != null; methodDesc = methodDesc.next) {
+                subscribers.add(new Subscriber(reference, target, methodDesc));
+            }
+            result.put(e.getKey(), subscribers);
+        }
+        return result;
+    }
+
+
+    /**
+     * Creates the Android Scheduler if async_event_bus_lib is present, the {@link ThreadScheduler} otherwise.
+     *
+     * @throws IllegalStateException on Android, if the Android Scheduler is missing, ex. removed by ProGuard.
+     *                               UI subscribers would not be called in the main thread otherwise.
+     */
+    @NonNull
+    static Scheduler createDefaultScheduler(@NonNull String name) {
+        Class<?> schedulerClass;
+        try {
+            schedulerClass = Class.forName(ANDROID_SCHEDULER_CLASS);
+        } catch (ClassNotFoundException e) {
+            if (isClassPresent(ANDROID_LOOPER_CLASS)) {
+                throw new IllegalStateException(ANDROID_SCHEDULER_CLASS + " not found. Add async_event_bus_lib "
+                        + "to the app dependencies, and if the app is minified, keep the class, "
+                        + "see consumer-proguard-rules.pro of async_event_bus_lib.", e);
+            }
+            return new ThreadScheduler(name);
+        }
+        try {
+            return (Scheduler) schedulerClass.getConstructor(String.class).newInstance(name);
+        } catch (Exception e) {
+            throw new IllegalStateException("Can not create " + ANDROID_SCHEDULER_CLASS, e);
+        }
+    }
+
+    static boolean isClassPresent(@NonNull String className) {
+        try {
+            Class.forName(className, false, EventBus.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    /**
+     * One Method with @Subscribe descriptor.
+     * Linked list, done old way, for maximum efficiency and minimum memory footprint.
+     * <p/>
+     * The invoker, and all other @Subscribe attributes, are in the info, created once per method, and shared by
+     * all Subscriber's of this method.
+     * For indexed classes the Method object is resolved lazily, only if someone really needs it.
+     * <p/>
+     * Two descriptors are equal when they describe the same method.
+     */
+    static class MethodDescLinkedListItem {
+        final Class<?> declaringClass;
+        final String name;
+        final Class<?> eventType;
+        final SubscriberMethodInfo info;
+        final int hash;
+        volatile Method method;
+        MethodDescLinkedListItem next;
+
+        MethodDescLinkedListItem(@NonNull Method method, @NonNull SubscriberMethodInfo info, @Nullable MethodDescLinkedListItem next) {
+            this(method.getDeclaringClass(), info, next);
+            this.method = method;
+        }
+
+        MethodDescLinkedListItem(@NonNull Class<?> declaringClass, @NonNull SubscriberMethodInfo info,
+                                 @Nullable MethodDescLinkedListItem next) {
+            this.declaringClass = declaringClass;
+            this.name = info.mMethodName;
+            this.eventType = info.mEventType;
+            this.info = info;
+            this.hash = (declaringClass.hashCode() * 31 + name.hashCode()) * 31 + eventType.hashCode();
+            this.next = next;
+        }
+
+        /**
+         * Copy of this item, linked to other list.
+         */
+        @NonNull
+        MethodDescLinkedListItem copy(@Nullable MethodDescLinkedListItem next) {
+            MethodDescLinkedListItem result = new MethodDescLinkedListItem(declaringClass, info, next);
+            result.method = method;
+            return result;
+        }
+
+        /**
+         * Get the described method, resolve it if needed.
+         */
+        @NonNull
+        Method getMethod() {
+            Method result = method;
+            if (result == null) {
+                try {
+                    result = declaringClass.getDeclaredMethod(name, eventType);
+                } catch (NoSuchMethodException e) {
+                    throw new IllegalStateException("Indexed method " + declaringClass.getName() + "." + name
+                            + "(" + eventType.getName() + ") not found, the index is out of date.", e);
+                }
+                method = result;
+            }
+            return result;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null || getClass() != obj.getClass() || hash != ((MethodDescLinkedListItem) obj).hash) {
+                return false;
+            }
+            final MethodDescLinkedListItem other = (MethodDescLinkedListItem) obj;
+            return declaringClass == other.declaringClass && eventType == other.eventType && name.equals(other.name);
+        }
+    }
+
+}
@@ -0,0 +1,187 @@
+package com.pgssoft.async_event_bus;
+
+import android.support.annotation.NonNull;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Live statistics of one {@link EventBus}, see {@link EventBus#setStatsEnabled(boolean)}.
+ * <p/>
+ * All numbers are collected since stats were enabled. Counters are striped, so busy threads do not contend
+ * on them, and they are read without stopping the bus, so numbers read together may be slightly inconsistent.
+ */
+public final class EventBusStats {
+
+    /**
+     * Get all event types posted or dispatched so far.
+     */
+    @NonNull
+    public Set<Class<?>> getEventTypes() {
+        return new HashSet<Class<?>>(mEventTypes.keySet());
+    }
+
+    /**
+     * Get number of events of exactly given class, passed to any post or send method.
+     */
+    public long getPostedCount(@NonNull Class<?> eventClass) {
+        EventTypeCounters counters = mEventTypes.get(eventClass);
+        return counters != null ? counters.mPosted.sum() : 0;
+    }
+
+    /**
+     * Get number of events of exactly given class, dispatched to subscribers. Includes DeadEvents.
+     */
+    public long getDispatchedCount(@NonNull Class<?> eventClass) {
+        EventTypeCounters counters = mEventTypes.get(eventClass);
+        return counters != null ? counters.mDispatched.sum() : 0;
+    }
+
+    /**
+     * Get number of events wrapped in DeadEvents, because nobody subscribed them.
+     */
+    public long getDeadEventCount() {
+        return mDeadEvents.sum();
+    }
+
+    /**
+     * Get number of posts waiting for the dispatcher thread. Batch post is counted once.
+     * Posts made before the stats were enabled are not counted.
+     */
+    public int getDispatcherQueueDepth() {
+        return (int) mDispatcherQueue.sum();
+    }
+
+    /**
+     * Get number of deliveries scheduled to delivery threads, but not executed yet.
+     * Batch delivery to one thread is counted once.
+     */
+    public long getPendingDeliveryCount() {
+        return mPendingDeliveries.sum();
+    }
+
+    /**
+     * Get time from posting event, to the start of its dispatch. For delayed posts, counted from the end of the delay.
+     */
+    @NonNull
+    public LatencyHistogram getPostToDispatchLatency() {
+        return mPostToDispatch;
+    }
+
+    /**
+     * Get time from scheduling delivery to a delivery thread, to the start of the delivery.
+     */
+    @NonNull
+    public LatencyHistogram getDispatchToDeliveryLatency() {
+        return mDispatchToDelivery;
+    }
+
+    /**
+     * Get execution times of subscriber methods.
+     *
+     * @return @NonNull map, key: method name, like "com.example.Screen#onEvent(Event)", value: the live histogram.
+     */
+    @NonNull
+    public Map<String, LatencyHistogram> getSubscriberExecutionTimes() {
+        Map<String, LatencyHistogram> result = new HashMap<String, LatencyHistogram>();
+        for (Map.Entry<EventBus.MethodDescLinkedListItem, LatencyHistogram> entry : mExecutionTimes.entrySet()) {
+            EventBus.MethodDescLinkedListItem method = entry.getKey();
+            result.put(method.declaringClass.getName() + "#" + method.name + "(" + method.eventType.getSimpleName() + ")",
+                    entry.getValue());
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder("EventBusStats{");
+        for (Class<?> eventType : getEventTypes()) {
+            result.append(eventType.getSimpleName()).append(": posted=").append(getPostedCount(eventType))
+                    .append(", dispatched=").append(getDispatchedCount(eventType)).append("; ");
+        }
+        result.append("dead=").append(getDeadEventCount())
+                .append("; dispatcherQueue=").append(getDispatcherQueueDepth())
+                .append("; pendingDeliveries=").append(getPendingDeliveryCount())
+                .append("; postToDispatch: ").append(mPostToDispatch)
+                .append("; dispatchToDelivery: ").append(mDispatchToDelivery)
+                .append("}");
+        return result.toString();
+    }
+
+    //////////////////////////////////////////////////////////////////////////////////////////
+    // implementation
+
+    @NonNull
+    final EventBus mEventBus;
+
+    final ConcurrentHashMap<Class<?>, EventTypeCounters> mEventTypes = new ConcurrentHashMap<Class<?>, EventTypeCounters>();
+    final ConcurrentHashMap<EventBus.MethodDescLinkedListItem, LatencyHistogram> mExecutionTimes
+            = new ConcurrentHashMap<EventBus.MethodDescLinkedListItem, LatencyHistogram>();
+    final StripedCounter mDeadEvents = new StripedCounter();
+    final StripedCounter mPendingDeliveries = new StripedCounter();
+    final StripedCounter mDispatcherQueue = new StripedCounter();
+    final LatencyHistogram mPostToDispatch = new LatencyHistogram();
+    final LatencyHistogram mDispatchToDelivery = new LatencyHistogram();
+
+    EventBusStats(@NonNull EventBus eventBus) {
+        mEventBus = eventBus;
+    }
+
+    static class EventTypeCounters {
+        final StripedCounter mPosted = new StripedCounter();
+        final StripedCounter mDispatched = new StripedCounter();
+    }
+
+    @NonNull
+    EventTypeCounters getCounters(@NonNull Class<?> eventClass) {
+        EventTypeCounters result = mEventTypes.get(eventClass);
+        if (result == null) {
+            EventTypeCounters created = new EventTypeCounters();
+            result = mEventTypes.putIfAbsent(eventClass, created);
+            if (result == null) {
+                result = created;
+            }
+        }
+        return result;
+    }
+
+    void onPosted(@NonNull Object event) {
+        getCounters(event.getClass()).mPosted.increment();
+    }
+
+    void onDispatched(@NonNull Object event) {
+        getCounters(event.getClass()).mDispatched.increment();
+    }
+
+    void onDispatcherQueued() {
+        mDispatcherQueue.increment();
+    }
+
+    void onDispatcherStarted() {
+        mDispatcherQueue.decrement();
+    }
+
+    void onDeliveryScheduled() {
+        mPendingDeliveries.increment();
+    }
+
+    void onDeliveryStarted(long scheduleTime) {
+        mPendingDeliveries.decrement();
+        mDispatchToDelivery.record(System.nanoTime() - scheduleTime);
+    }
+
+    void onExecuted(@NonNull EventBus.MethodDescLinkedListItem method, long nanos) {
+        LatencyHistogram histogram = mExecutionTimes.get(method);
+        if (histogram == null) {
+            LatencyHistogram created = new LatencyHistogram();
+            histogram = mExecutionTimes.putIfAbsent(method, created);
+            if (histogram == null) {
+                histogram = created;
+            }
+        }
+        histogram.record(nanos);
+    }
+}
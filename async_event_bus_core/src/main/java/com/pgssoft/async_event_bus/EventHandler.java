@@ -0,0 +1,20 @@
+package com.pgssoft.async_event_bus;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Functional subscriber, see {@link EventBus#subscribe(Class, EventBus.DeliveryThread, EventHandler)}.
+ * <p/>
+ * Bus calls it directly, without the reflection, so it is the fastest kind of subscriber.
+ *
+ * @param <T> the event type.
+ */
+public interface EventHandler<T> {
+
+    /**
+     * Handle the event, called in the thread requested when subscribed.
+     *
+     * @param event @NonNull the event.
+     */
+    void onEvent(@NonNull T event);
+}
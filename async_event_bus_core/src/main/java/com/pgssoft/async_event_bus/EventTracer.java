@@ -0,0 +1,53 @@
+package com.pgssoft.async_event_bus;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.lang.reflect.Method;
+
+/**
+ * Listener of the event lifecycle, see {@link EventBus#setTracer(EventTracer)}.
+ * <p/>
+ * Every post gets a correlation ID. An event posted by a subscriber, while it handles another event, inherits
+ * the ID of that event, so the whole cascade of posts and deliveries caused by one post shares one ID.
+ * <p/>
+ * Callbacks are called synchronously, in bus threads, often in the dispatcher thread, so they should be fast
+ * and must not block. They may be called concurrently from many threads.
+ */
+public interface EventTracer {
+
+    /**
+     * Event was passed to any post or send method. Called in the posting thread.
+     *
+     * @param correlationId ID of the post, or of the cascade the post belongs to.
+     * @param event         @NonNull the posted event.
+     */
+    void onPosted(long correlationId, @NonNull Object event);
+
+    /**
+     * Dispatcher started to look up subscribers of the event. Called in the dispatcher thread.
+     */
+    void onDispatched(long correlationId, @NonNull Object event);
+
+    /**
+     * Delivery to a subscriber was passed to its delivery thread. Not called for DeliveryThread.DISPATCHER
+     * subscribers, they are called immediately.
+     *
+     * @param target @Nullable the subscriber object, null if it was garbage collected meanwhile.
+     * @param method @NonNull the subscriber method.
+     */
+    void onDeliveryQueued(long correlationId, @NonNull Object event, @Nullable Object target, @NonNull Method method);
+
+    /**
+     * Subscriber method is about to be called. Called in the delivery thread.
+     */
+    void onDeliveryStarted(long correlationId, @NonNull Object event, @NonNull Object target, @NonNull Method method);
+
+    /**
+     * Subscriber method returned. Called in the delivery thread.
+     *
+     * @param error @Nullable exception thrown by the subscriber, null if it returned normally.
+     */
+    void onDeliveryCompleted(long correlationId, @NonNull Object event, @NonNull Object target, @NonNull Method method,
+                             @Nullable Throwable error);
+}
@@ -0,0 +1,91 @@
+package com.pgssoft.async_event_bus;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A Runnable that execute a Subscriber method.
+ * <p/>
+ * ExecutorRunnable is a Runnable, subscriber method will be executed by passing it to the Scheduler Executor,
+ * or by executing it on Bus Executor background thread pool.
+ * <p/>
+ * ExecutorRunnables are reused, You have to use ExecutorRunnable.obtain() to get instance, and You are not allowed
+ * to do anything after You scheduled this instance for execution.
+ * <p/>
+ * Note: package access, class is for internal use only.
+ */
+/*package*/ class ExecutorRunnable implements Runnable {
+    static final Queue<ExecutorRunnable> mPool = new ConcurrentLinkedQueue<ExecutorRunnable>();
+
+    EventBus mEventBus;
+    Subscriber mSubscriber;
+    Object mEvent;
+    /**
+     * If set, event is conflated, and the latest pending event with this key will be delivered instead of mEvent.
+     */
+    Object mConflationKey;
+    /**
+     * Priority of the delivered event, honored by bus mailboxes.
+     */
+    int mPriority;
+    /**
+     * Correlation ID of the delivered event, or 0 if not traced.
+     */
+    long mTraceId;
+    /**
+     * Stats of the bus, if enabled when delivery was scheduled, and the time it was scheduled.
+     */
+    EventBusStats mStats;
+    long mScheduleTime;
+
+    @NonNull
+    static ExecutorRunnable obtain(@NonNull EventBus bus, @NonNull Subscriber subscriber, @NonNull Object event) {
+        return obtain(bus, subscriber, event, null);
+    }
+
+    @NonNull
+    static ExecutorRunnable obtain(@NonNull EventBus bus, @NonNull Subscriber subscriber, @NonNull Object event,
+                                   @Nullable Object conflationKey) {
+        ExecutorRunnable result = mPool.poll();
+        if (result == null) {
+            result = new ExecutorRunnable();
+        }
+        result.mEventBus = bus;
+        result.mSubscriber = subscriber;
+        result.mEvent = event;
+        result.mConflationKey = conflationKey;
+        return result;
+    }
+
+    void setStats(@Nullable EventBusStats stats) {
+        if (stats != null) {
+            mStats = stats;
+            mScheduleTime = System.nanoTime();
+            stats.onDeliveryScheduled();
+        }
+    }
+
+    @Override
+    public void run() {
+        if (mStats != null) {
+            mStats.onDeliveryStarted(mScheduleTime);
+        }
+        Object event = mSubscriber.resolveEvent(mEvent, mConflationKey);
+        if (event != null) {
+            mSubscriber.deliverEvent(mEventBus, event, mTraceId);
+        }
+
+        //reset and move myself to pool
+        mEventBus = null;
+        mStats = null;
+        mSubscriber = null;
+        mEvent = null;
+        mConflationKey = null;
+        mPriority = EventBus.PRIORITY_NORMAL;
+        mTraceId = 0;
+        mPool.add(this);
+    }
+}
@@ -0,0 +1,98 @@
+package com.pgssoft.async_event_bus;
+
+import android.support.annotation.NonNull;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Subscription of an {@link EventHandler}.
+ * <p/>
+ * The handler is the target of its Subscriber, held weakly by the bus, like any other target.
+ * The subscription holds the handler strongly, so the handler lives as long as the subscription.
+ * Handlers of strongly retained subscriptions are held by the bus too, until closed.
+ * <p/>
+ * Note: package access, class is for internal bus use.
+ */
+/*package*/ class HandlerSubscription implements Subscription {
+
+    /**
+     * Name of the handler "method", used in descriptors and stats.
+     * It is not a valid Java identifier, so the descriptor never equals the descriptor of a real method,
+     * ex. of {@link Subscribe} onEvent(T) of a target which is subscribed as a handler too.
+     */
+    static final String METHOD_NAME = "EventHandler.onEvent";
+
+    /**
+     * Calls handlers directly. Handler exceptions are wrapped, as required by the SubscriberInvoker contract.
+     */
+    static final SubscriberInvoker INVOKER = new SubscriberInvoker() {
+        @Override
+        @SuppressWarnings("unchecked")
+        public void invoke(@NonNull Object target, @NonNull Object event) throws Exception {
+            try {
+                ((EventHandler<Object>) target).onEvent(event);
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+    };
+
+    /**
+     * Descriptor of the handler "method". The Method is needed for error reports and tracers only,
+     * so it is resolved lazily, it is the only reflection related to handlers.
+     */
+    static class MethodDesc extends EventBus.MethodDescLinkedListItem {
+        static volatile Method mOnEvent;
+
+        MethodDesc(@NonNull Class<?> handlerClass, @NonNull SubscriberMethodInfo info) {
+            super(handlerClass, info, null);
+        }
+
+        @NonNull
+        @Override
+        Method getMethod() {
+            Method result = mOnEvent;
+            if (result == null) {
+                try {
+                    result = EventHandler.class.getMethod("onEvent", Object.class);
+                } catch (NoSuchMethodException e) {
+                    throw new IllegalStateException(e);
+                }
+                mOnEvent = result;
+            }
+            return result;
+        }
+    }
+
+    @NonNull
+    final EventBus mEventBus;
+    @NonNull
+    final Subscriber mSubscriber;
+    /**
+     * Keeps the handler reachable, the bus holds it weakly.
+     */
+    @NonNull
+    final Object mHandler;
+    volatile boolean mClosed;
+
+    HandlerSubscription(@NonNull EventBus bus, @NonNull TargetReference reference, @NonNull EventHandler<?> handler,
+                        @NonNull Class<?> eventType, @NonNull EventBus.DeliveryThread thread) {
+        mEventBus = bus;
+        mHandler = handler;
+        SubscriberMethodInfo info = new SubscriberMethodInfo(METHOD_NAME, eventType, thread, INVOKER);
+        mSubscriber = new Subscriber(reference, handler, new MethodDesc(handler.getClass(), info));
+    }
+
+    @Override
+    public void close() {
+        if (mClosed) return;
+        mClosed = true;
+        mEventBus.removeSubscription(this);
+    }
+
+    @Override
+    public boolean isActive() {
+        return !mClosed;
+    }
+}
@@ -0,0 +1,108 @@
+package com.pgssoft.async_event_bus;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of durations, in nanoseconds, part of the {@link EventBusStats}.
+ * <p/>
+ * Durations are counted in power of 2 buckets, bucket i holds durations from 2^i to 2^(i+1)-1 nanoseconds,
+ * so recording is O(1) and lock-free, and percentiles are accurate within a factor of 2.
+ * The histogram is live, it is updated while read.
+ */
+public final class LatencyHistogram {
+
+    static final int BUCKETS = 64;
+
+    /**
+     * Get number of recorded durations.
+     */
+    public long getCount() {
+        return mCount.sum();
+    }
+
+    /**
+     * Get sum of all recorded durations, in nanoseconds.
+     */
+    public long getTotalNanos() {
+        return mTotal.sum();
+    }
+
+    /**
+     * Get the mean duration, in nanoseconds, or 0 if nothing was recorded.
+     */
+    public long getMeanNanos() {
+        long count = getCount();
+        return count > 0 ? getTotalNanos() / count : 0;
+    }
+
+    /**
+     * Get the longest recorded duration, in nanoseconds.
+     */
+    public long getMaxNanos() {
+        return mMax.get();
+    }
+
+    /**
+     * Get the duration not exceeded by given fraction of recorded durations, ex. 0.99 for the 99th percentile.
+     *
+     * @param fraction from 0 to 1.
+     * @return upper bound of the bucket holding the percentile, in nanoseconds, or 0 if nothing was recorded.
+     */
+    public long getPercentileNanos(double fraction) {
+        long[] buckets = getBuckets();
+        long count = 0;
+        for (long bucket : buckets) {
+            count += bucket;
+        }
+        if (count == 0) return 0;
+
+        long rank = (long) Math.ceil(fraction * count);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets[i];
+            if (seen >= rank && buckets[i] > 0) {
+                return Math.min(getMaxNanos(), i == BUCKETS - 1 ? Long.MAX_VALUE : (1L << (i + 1)) - 1);
+            }
+        }
+        return getMaxNanos();
+    }
+
+    /**
+     * Get counts of all buckets, bucket i counts durations from 2^i to 2^(i+1)-1 nanoseconds.
+     */
+    public long[] getBuckets() {
+        long[] result = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            result[i] = mBuckets.get(i);
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + getCount() + ", mean=" + getMeanNanos() + "ns, p99=" + getPercentileNanos(0.99)
+                + "ns, max=" + getMaxNanos() + "ns";
+    }
+
+    //////////////////////////////////////////////////////////////////////////////////////////
+    // implementation
+
+    final AtomicLongArray mBuckets = new AtomicLongArray(BUCKETS);
+    final StripedCounter mCount = new StripedCounter();
+    final StripedCounter mTotal = new StripedCounter();
+    final AtomicLong mMax = new AtomicLong();
+
+    void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        mBuckets.incrementAndGet(nanos == 0 ? 0 : 63 - Long.numberOfLeadingZeros(nanos));
+        mCount.increment();
+        mTotal.add(nanos);
+        long max;
+        while (nanos > (max = mMax.get())) {
+            if (mMax.compareAndSet(max, nanos)) break;
+        }
+    }
+}
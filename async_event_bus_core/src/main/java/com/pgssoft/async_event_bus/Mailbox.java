@@ -0,0 +1,179 @@
+package com.pgssoft.async_event_bus;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Serial executor, used as the dispatcher queue of every bus, and for DeliveryThread.BACKGROUND_SERIAL subscribers
+ * of one target.
+ * <p/>
+ * Runnables are executed one by one, by threads of the backing executor.
+ * Only one thread at a time is used, and only while there is something to execute. Mailbox runs at most
+ * {@link #THROUGHPUT} runnables in a row, then it re-submits itself, to be fair to other mailboxes.
+ * <p/>
+ * Runnables of higher priority (see {@link EventBus#post(Object, int)}) overtake all waiting runnables of lower
+ * priority, no matter how many are waiting, runnables of the same priority are executed in order.
+ * Every priority level has own FIFO queue. Waiting level is executed after at most {@link #STARVATION_LIMIT}
+ * runnables of higher levels, so low priority runnables are never starved.
+ * <p/>
+ * Note: package access, class is for internal bus use.
+ */
+/*package*/ class Mailbox implements Executor, Runnable {
+
+    /**
+     * Max number of runnables executed before the thread is returned to the backing executor.
+     */
+    static final int THROUGHPUT = 16;
+
+    /**
+     * Max number of runnables of higher priority executed in a row, while a level of lower priority is waiting.
+     */
+    static final int STARVATION_LIMIT = 64;
+
+    @NonNull
+    final Executor mExecutor;
+
+    final Object mLock = new Object();
+
+    /**
+     * Priority levels, the highest first. Guarded by mLock.
+     * Levels are created on first use, and never removed, there are just few priorities in practice.
+     */
+    Level[] mLevels = new Level[0];
+
+    /**
+     * Number of waiting runnables, guarded by mLock.
+     */
+    int mSize;
+
+    /**
+     * Set while the mailbox is submitted to the backing executor, or running.
+     */
+    final AtomicBoolean mScheduled = new AtomicBoolean();
+
+    Mailbox(@NonNull Executor executor) {
+        mExecutor = executor;
+    }
+
+    @Override
+    public void execute(@NonNull Runnable command) {
+        execute(command, getPriority(command));
+    }
+
+    void execute(@NonNull Runnable command, int priority) {
+        if (command == null) {
+            throw new NullPointerException();
+        }
+        synchronized (mLock) {
+            getLevel(priority).mQueue.addLast(command);
+            mSize++;
+        }
+        schedule();
+    }
+
+    @Override
+    public void run() {
+        try {
+            for (int i = 0; i < THROUGHPUT; i++) {
+                Runnable runnable;
+                synchronized (mLock) {
+                    runnable = poll();
+                }
+                if (runnable == null) break;
+                runnable.run();
+            }
+        } finally {
+            mScheduled.set(false);
+            //something may be added after the last poll, but before the flag was cleared
+            if (!isEmpty()) {
+                schedule();
+            }
+        }
+    }
+
+    int size() {
+        synchronized (mLock) {
+            return mSize;
+        }
+    }
+
+    boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Get the level of given priority, create it if needed. Have to be called with mLock held.
+     */
+    @NonNull
+    Level getLevel(int priority) {
+        Level[] levels = mLevels;
+        int index = 0;
+        for (; index < levels.length; index++) {
+            if (levels[index].mPriority == priority) return levels[index];
+            if (levels[index].mPriority < priority) break;
+        }
+        Level result = new Level(priority);
+        Level[] grown = new Level[levels.length + 1];
+        System.arraycopy(levels, 0, grown, 0, index);
+        grown[index] = result;
+        System.arraycopy(levels, index, grown, index + 1, levels.length - index);
+        mLevels = grown;
+        return result;
+    }
+
+    /**
+     * Take the oldest runnable of the highest waiting level, or of the lower level which waited too long.
+     * Have to be called with mLock held.
+     */
+    @Nullable
+    Runnable poll() {
+        Level next = null;
+        for (Level level : mLevels) {
+            if (level.mQueue.isEmpty()) continue;
+            if (next == null || ++level.mSkipped >= STARVATION_LIMIT) {
+                next = level;
+            }
+        }
+        if (next == null) return null;
+        next.mSkipped = 0;
+        mSize--;
+        return next.mQueue.pollFirst();
+    }
+
+    void schedule() {
+        if (mScheduled.compareAndSet(false, true)) {
+            mExecutor.execute(this);
+        }
+    }
+
+    /**
+     * Get priority of bus runnables, other runnables have EventBus.PRIORITY_NORMAL.
+     */
+    static int getPriority(@NonNull Runnable runnable) {
+        if (runnable instanceof Dispatcher) {
+            return ((Dispatcher) runnable).mPriority;
+        }
+        if (runnable instanceof ExecutorRunnable) {
+            return ((ExecutorRunnable) runnable).mPriority;
+        }
+        return EventBus.PRIORITY_NORMAL;
+    }
+
+    static class Level {
+        final int mPriority;
+        final ArrayDeque<Runnable> mQueue = new ArrayDeque<Runnable>();
+
+        /**
+         * Number of runnables of higher levels executed since this level was executed, while it was waiting.
+         */
+        int mSkipped;
+
+        Level(int priority) {
+            mPriority = priority;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.pgssoft.async_event_bus;
+
+import android.support.annotation.Nullable;
+
+/**
+ * Event that belongs to a partition, see {@link PartitionedExecutor}.
+ * Events with equal partition keys are dispatched in order, events with different keys may be dispatched in parallel.
+ */
+public interface PartitionedEvent {
+
+    /**
+     * Get the partition key, ex. account or conversation id.
+     * Must be immutable, and have proper equals() and hashCode().
+     *
+     * @return the key, or null if event does not belong to any partition.
+     */
+    @Nullable
+    Object getPartitionKey();
+}
@@ -0,0 +1,144 @@
+package com.pgssoft.async_event_bus;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Dispatcher executor dispatching events in parallel, in many lanes, but in order for every partition key.
+ * <p/>
+ * Pass it to the {@link ThreadScheduler}, or the HandlerScheduler, as the dispatcher executor. Posted events are
+ * routed to lanes of the {@link DispatcherPool} by hash of their partition key. The key is provided by the
+ * {@link KeyExtractor}, or by the event itself, if it is a {@link PartitionedEvent}. Events without the key are all
+ * dispatched in the first lane.
+ * <p/>
+ * Events with equal keys are dispatched one by one, in order, as usual. Events with different keys may be dispatched
+ * at the same time, so DeliveryThread.DISPATCHER subscribers must be thread-safe.
+ * Batches posted by the {@link EventBus#postAll(java.util.Collection)} are split by lanes.
+ */
+public class PartitionedExecutor implements Executor {
+
+    /**
+     * Provides partition keys for events that are not {@link PartitionedEvent}s.
+     */
+    public interface KeyExtractor {
+
+        /**
+         * Get the partition key of the event.
+         *
+         * @param event @NonNull the posted event.
+         * @return the key, or null if event does not belong to any partition.
+         */
+        @Nullable
+        Object getPartitionKey(@NonNull Object event);
+    }
+
+    /**
+     * Creates a new PartitionedExecutor.
+     *
+     * @param lanes        @NonNull pool of lanes. Should not be shared with other buses, as one bus would delay
+     *                     events of the other.
+     * @param keyExtractor @Nullable key extractor. Pass null to use keys of {@link PartitionedEvent}s only.
+     */
+    public PartitionedExecutor(@NonNull DispatcherPool lanes, @Nullable KeyExtractor keyExtractor) {
+        mLanes = lanes;
+        mKeyExtractor = keyExtractor;
+    }
+
+    @Override
+    public void execute(@NonNull Runnable command) {
+        if (!(command instanceof Dispatcher)) {
+            mLanes.getLane(0).execute(command);
+            return;
+        }
+
+        Dispatcher dispatcher = (Dispatcher) command;
+        if (dispatcher.mEvents == null) {
+            mLanes.getLane(getLaneIndex(dispatcher.mEvent)).execute(dispatcher);
+        } else {
+            executeBatch(dispatcher);
+        }
+    }
+
+    //////////////////////////////////////////////////////////////////////////////////////////
+    // implementation
+
+    @NonNull
+    final DispatcherPool mLanes;
+
+    @Nullable
+    final KeyExtractor mKeyExtractor;
+
+    /**
+     * Get lane for the event.
+     */
+    int getLaneIndex(@NonNull Object event) {
+        Object key = mKeyExtractor != null ? mKeyExtractor.getPartitionKey(event) : null;
+        if (key == null && event instanceof PartitionedEvent) {
+            key = ((PartitionedEvent) event).getPartitionKey();
+        }
+        if (key == null) {
+            return 0;
+        }
+        int hash = key.hashCode();
+        //spread the high bits, keys are often small numbers
+        hash ^= (hash >>> 16);
+        return (hash & Integer.MAX_VALUE) % mLanes.getLaneCount();
+    }
+
+    /**
+     * Split the batch by lanes, keeping the order of events in every lane.
+     */
+    void executeBatch(@NonNull Dispatcher dispatcher) {
+        Object[] events = dispatcher.mEvents;
+        int firstLane = getLaneIndex(events[0]);
+        List<List<Object>> lanes = null;
+        for (int i = 1; i < events.length; i++) {
+            int lane = getLaneIndex(events[i]);
+            if (lanes == null) {
+                if (lane == firstLane) continue;
+                //batch spans many lanes, copy the events seen so far to the first lane.
+                lanes = new ArrayList<List<Object>>(mLanes.getLaneCount());
+                for (int j = 0; j < mLanes.getLaneCount(); j++) {
+                    lanes.add(null);
+                }
+                List<Object> first = new ArrayList<Object>();
+                for (int j = 0; j < i; j++) {
+                    first.add(events[j]);
+                }
+                lanes.set(firstLane, first);
+            }
+            List<Object> laneEvents = lanes.get(lane);
+            if (laneEvents == null) {
+                laneEvents = new ArrayList<Object>();
+                lanes.set(lane, laneEvents);
+            }
+            laneEvents.add(events[i]);
+        }
+
+        if (lanes == null) {
+            mLanes.getLane(firstLane).execute(dispatcher);
+            return;
+        }
+
+        for (int lane = 0; lane < lanes.size(); lane++) {
+            List<Object> laneEvents = lanes.get(lane);
+            if (laneEvents == null) continue;
+            Dispatcher laneDispatcher = Dispatcher.obtainBatch(dispatcher.mEventBus, laneEvents.toArray(), dispatcher.mSingleTarget);
+            laneDispatcher.mSticky = dispatcher.mSticky;
+            laneDispatcher.mPostingThread = dispatcher.mPostingThread;
+            laneDispatcher.mPriority = dispatcher.mPriority;
+            laneDispatcher.mTraceId = dispatcher.mTraceId;
+            //latency is measured from the post of the whole batch
+            laneDispatcher.mPostTime = dispatcher.mPostTime;
+            //the batch is counted once in the dispatcher queue depth, by the first lane dispatcher
+            laneDispatcher.mQueuedStats = dispatcher.mQueuedStats;
+            dispatcher.mQueuedStats = null;
+            mLanes.getLane(lane).execute(laneDispatcher);
+        }
+        dispatcher.recycle();
+    }
+}
@@ -0,0 +1,31 @@
+package com.pgssoft.async_event_bus;
+
+/**
+ * Handle of a delayed post, returned by the {@link EventBus#postDelayed(Object, long)} and
+ * {@link EventBus#postToTargetDelayed(Object, Object, long)}.
+ * <p/>
+ * Makes "timeout unless superseded" patterns cheap: keep the handle, and cancel or reschedule it when
+ * the awaited event arrives. Both operations are O(1), and can be called from any thread.
+ */
+public interface PendingPost {
+
+    /**
+     * Cancel the post, the event will not be posted.
+     *
+     * @return true if the post was cancelled, false if the event was posted already, or the post was cancelled before.
+     */
+    boolean cancel();
+
+    /**
+     * Move the post to given number of milliseconds from now.
+     *
+     * @param milliseconds new delay, counted from now.
+     * @return true if the post was moved, false if the event was posted already, or the post was cancelled.
+     */
+    boolean reschedule(long milliseconds);
+
+    /**
+     * @return true if the event is still waiting to be posted.
+     */
+    boolean isPending();
+}
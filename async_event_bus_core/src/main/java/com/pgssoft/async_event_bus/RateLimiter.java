@@ -0,0 +1,147 @@
+package com.pgssoft.async_event_bus;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * Debounce or throttle of one subscriber, see {@link Subscribe#debounce()} and {@link Subscribe#throttle()}.
+ * <p/>
+ * Applied by the {@link Dispatcher}, before the delivery is scheduled, so suppressed events never reach
+ * delivery threads. Only the latest event is kept, older ones are just dropped. Deferred event is delivered
+ * by a timer of the {@link EventBus#getTimer()}, which passes it back to the dispatcher thread, and then
+ * it is delivered as usual.
+ * <p/>
+ * Note: package access, class is for internal bus use.
+ */
+/*package*/ class RateLimiter implements Runnable {
+
+    @NonNull
+    final Subscriber mSubscriber;
+
+    /**
+     * Deliver after this many milliseconds of quiet, or 0.
+     */
+    final long mDebounce;
+
+    /**
+     * Deliver at most once per this many milliseconds, or 0.
+     */
+    final long mThrottle;
+
+    //all below guarded by this
+
+    /**
+     * The latest deferred event, null if there is none.
+     */
+    @Nullable
+    Object mPending;
+    EventBus mPendingBus;
+    int mPendingPriority;
+    long mPendingTraceId;
+
+    /**
+     * Timer of the deferred event, null if there is none.
+     */
+    @Nullable
+    PendingPost mTimer;
+
+    /**
+     * System.nanoTime() of the last throttled delivery.
+     */
+    long mLastDelivery;
+    boolean mDelivered;
+
+    RateLimiter(@NonNull Subscriber subscriber, long debounce, long throttle) {
+        mSubscriber = subscriber;
+        mDebounce = debounce;
+        mThrottle = throttle;
+    }
+
+    /**
+     * Offer an event to the subscriber.
+     *
+     * @return true if the event can be delivered now, false if it was deferred.
+     */
+    synchronized boolean offer(@NonNull EventBus bus, @NonNull Object event, int priority, long traceId) {
+        if (mDebounce > 0) {
+            defer(bus, event, priority, traceId);
+            //every event restarts the quiet period
+            if (mTimer == null || !mTimer.reschedule(mDebounce)) {
+                mTimer = EventBus.getTimer().schedule(this, mDebounce);
+            }
+            return false;
+        }
+
+        long now = System.nanoTime();
+        long wait = mDelivered ? mLastDelivery + mThrottle * 1000000L - now : 0;
+        if (wait <= 0 && mTimer == null) {
+            mLastDelivery = now;
+            mDelivered = true;
+            return true;
+        }
+        defer(bus, event, priority, traceId);
+        if (mTimer == null) {
+            mTimer = EventBus.getTimer().schedule(this, (wait + 999999L) / 1000000L);
+        }
+        return false;
+    }
+
+    /**
+     * Drop the deferred event, the subscriber was removed.
+     */
+    synchronized void cancel() {
+        if (mTimer != null) {
+            mTimer.cancel();
+            mTimer = null;
+        }
+        mPending = null;
+        mPendingBus = null;
+    }
+
+    void defer(@NonNull EventBus bus, @NonNull Object event, int priority, long traceId) {
+        mPending = event;
+        mPendingBus = bus;
+        mPendingPriority = priority;
+        mPendingTraceId = traceId;
+    }
+
+    /**
+     * Timer expired, pass the deferred event back to the dispatcher thread.
+     */
+    @Override
+    public void run() {
+        final Object event;
+        final EventBus bus;
+        final int priority;
+        final long traceId;
+        synchronized (this) {
+            //timer was rescheduled, or replaced after it expired, the current one will deliver
+            if (mTimer != null && mTimer.isPending()) return;
+            mTimer = null;
+            event = mPending;
+            bus = mPendingBus;
+            priority = mPendingPriority;
+            traceId = mPendingTraceId;
+            mPending = null;
+            mPendingBus = null;
+            if (event == null) return;
+            mLastDelivery = System.nanoTime();
+            mDelivered = true;
+        }
+
+        Runnable delivery = new Runnable() {
+            @Override
+            public void run() {
+                Object target = mSubscriber.mTarget.get();
+                //the subscriber could be removed while the delivery was waiting for the dispatcher thread
+                if (target == null || mSubscriber.mRemoved) return;
+                Dispatcher dispatcher = Dispatcher.obtain(bus, event, null);
+                dispatcher.mPriority = priority;
+                dispatcher.mTraceId = traceId;
+                dispatcher.deliverNow(mSubscriber, target, event);
+                dispatcher.recycle();
+            }
+        };
+        bus.executeOnDispatcherThread(delivery, priority);
+    }
+}
@@ -0,0 +1,31 @@
+package com.pgssoft.async_event_bus;
+
+import android.support.annotation.NonNull;
+
+import java.lang.reflect.Method;
+
+/**
+ * The {@link SubscriberInvoker} that calls the subscriber method through the reflection.
+ * It is a fallback, used for all subscriber methods for which there is no better invoker.
+ * <p/>
+ * The method is made accessible once, when invoker is created, so there is no need to
+ * do it again for every Subscriber.
+ * <p/>
+ * Note: package access, class is for internal bus use.
+ */
+/*package*/ final class ReflectiveInvoker implements SubscriberInvoker {
+
+    @NonNull
+    final Method mMethod;
+
+    ReflectiveInvoker(@NonNull Method method) {
+        mMethod = method;
+        method.setAccessible(true);
+    }
+
+    @Override
+    public void invoke(@NonNull Object target, @NonNull Object event) throws Exception {
+        mMethod.invoke(target, event);
+    }
+
+}
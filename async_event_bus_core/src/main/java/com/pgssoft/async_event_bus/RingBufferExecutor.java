@@ -0,0 +1,271 @@
+package com.pgssoft.async_event_bus;
+
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Dispatcher thread backed by a preallocated multi-producer/single-consumer ring buffer.
+ * <p/>
+ * An alternative for the Handler MessageQueue, or the single thread executor, which are linked lists guarded by a lock.
+ * Here posting threads claim a slot with one CAS, and there is no allocation per posted runnable.
+ * Pass it to the {@link ThreadScheduler}, or the HandlerScheduler, as the dispatcher executor.
+ * <p/>
+ * How the dispatcher thread waits for new runnables is defined by the {@link WaitStrategy}.
+ * <p/>
+ * When the ring is full, posting threads wait for a free slot. If the dispatcher thread itself posts to
+ * the full ring, the oldest runnable is executed first, in the posting thread, to make room. It means that
+ * a DeliveryThread.DISPATCHER subscriber posting to the full ring may be re-entered: the bus dispatches
+ * the oldest event, and may call the subscriber again, before the subscriber call that posted returns.
+ * Use a capacity large enough for the bursts of events posted by DISPATCHER subscribers to avoid it.
+ */
+public class RingBufferExecutor implements Executor {
+
+    /**
+     * How the dispatcher thread waits when the ring is empty.
+     */
+    public enum WaitStrategy {
+        /**
+         * The thread is parked, and unparked by the next post. Cheap for CPU, but wake-up takes some microseconds.
+         */
+        PARK,
+        /**
+         * The thread yields the CPU in a loop. Lower latency than PARK, but the thread is never idle.
+         */
+        YIELD,
+        /**
+         * The thread is busy-spinning. The lowest latency, but it burns one CPU core all the time.
+         */
+        SPIN,
+    }
+
+    /**
+     * Creates a new RingBufferExecutor and starts its thread.
+     *
+     * @param name         @NonNull name of the dispatcher thread.
+     * @param capacity     number of slots, rounded up to the power of 2.
+     * @param waitStrategy @NonNull how the thread waits when there is nothing to execute.
+     * @throws IllegalArgumentException if capacity is less than 1.
+     */
+    public RingBufferExecutor(@NonNull String name, int capacity, @NonNull WaitStrategy waitStrategy) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacity " + capacity + " out of range.");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        mMask = size - 1;
+        mSlots = new AtomicReferenceArray<Runnable>(size);
+        mSequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            mSequences.set(i, i);
+        }
+        mWaitStrategy = waitStrategy;
+
+        mThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                loop();
+            }
+        }, name);
+        mThread.setDaemon(true);
+        mThread.start();
+    }
+
+    /**
+     * Puts the runnable into the ring. Waits if the ring is full.
+     *
+     * @param command @NonNull runnable to execute in the dispatcher thread.
+     * @throws RejectedExecutionException if the ring is full, and the executor was quit, so it would wait forever.
+     */
+    @Override
+    public void execute(@NonNull Runnable command) {
+        if (command == null) {
+            throw new NullPointerException();
+        }
+        int idle = 0;
+        while (!offer(command)) {
+            if (Thread.currentThread() == mThread) {
+                //we would wait forever, execute the oldest one, it would be the next anyway.
+                Runnable oldest = poll();
+                if (oldest != null) {
+                    runSafely(oldest);
+                }
+            } else if (mQuit) {
+                throw new RejectedExecutionException("Executor was quit, and the ring is full.");
+            } else {
+                idle = waitForSlot(idle);
+            }
+        }
+        if (mParked) {
+            LockSupport.unpark(mThread);
+        }
+    }
+
+    /**
+     * Stops the thread, like the HandlerThread.quit() does. Runnables not executed yet are dropped.
+     * Especially useful with the SPIN and YIELD strategies, as the thread never sleeps.
+     */
+    public void quit() {
+        mQuit = true;
+        LockSupport.unpark(mThread);
+    }
+
+    //////////////////////////////////////////////////////////////////////////////////////////
+    // implementation
+
+    /**
+     * Producers spin this many times before they start to yield (or park, for the PARK strategy), when the ring is full.
+     * The dispatcher spins this many times before it parks, when the ring is empty.
+     */
+    static final int SPIN_TRIES = 100;
+
+    static final long PRODUCER_PARK_NANOS = 1000;
+
+    final int mMask;
+
+    /**
+     * The ring. Slot is written by the producer that claimed it, and cleared by the dispatcher thread.
+     */
+    @NonNull
+    final AtomicReferenceArray<Runnable> mSlots;
+
+    /**
+     * Sequence of every slot.
+     * Equal to position: the slot is free for the producer claiming this position.
+     * Equal to position + 1: the slot is published, ready for the dispatcher thread.
+     */
+    @NonNull
+    final AtomicLongArray mSequences;
+
+    /**
+     * Next position to claim by producers.
+     */
+    final AtomicLong mTail = new AtomicLong();
+
+    /**
+     * Next position to execute, used by the dispatcher thread only.
+     */
+    long mHead;
+
+    @NonNull
+    final WaitStrategy mWaitStrategy;
+
+    @NonNull
+    final Thread mThread;
+
+    /**
+     * Set when the dispatcher thread is about to park, producers have to unpark it.
+     */
+    volatile boolean mParked;
+
+    volatile boolean mQuit;
+
+    boolean offer(@NonNull Runnable command) {
+        while (true) {
+            long tail = mTail.get();
+            int index = (int) tail & mMask;
+            long diff = mSequences.get(index) - tail;
+            if (diff == 0) {
+                if (mTail.compareAndSet(tail, tail + 1)) {
+                    mSlots.lazySet(index, command);
+                    //volatile write publishes the slot, and orders it before the mParked read
+                    mSequences.set(index, tail + 1);
+                    return true;
+                }
+            } else if (diff < 0) {
+                //the slot is not released by the dispatcher yet, ring is full
+                return false;
+            }
+            //else other producer claimed this position, retry
+        }
+    }
+
+    /**
+     * Take the next runnable. Dispatcher thread only.
+     */
+    Runnable poll() {
+        long head = mHead;
+        int index = (int) head & mMask;
+        if (mSequences.get(index) != head + 1) {
+            return null;
+        }
+        Runnable result = mSlots.get(index);
+        mSlots.lazySet(index, null);
+        //release the slot for the producers of the next round
+        mSequences.lazySet(index, head + mMask + 1);
+        mHead = head + 1;
+        return result;
+    }
+
+    boolean isEmpty() {
+        long head = mHead;
+        return mSequences.get((int) head & mMask) != head + 1;
+    }
+
+    void loop() {
+        int idle = 0;
+        while (!mQuit) {
+            Runnable runnable = poll();
+            if (runnable != null) {
+                idle = 0;
+                runSafely(runnable);
+            } else {
+                idle = waitForRunnable(idle);
+            }
+        }
+    }
+
+    int waitForRunnable(int idle) {
+        switch (mWaitStrategy) {
+            case PARK:
+                if (idle < SPIN_TRIES) {
+                    return idle + 1;
+                }
+                mParked = true;
+                //re-check after the flag is visible, a producer could publish meanwhile
+                if (isEmpty() && !mQuit) {
+                    LockSupport.park(this);
+                }
+                mParked = false;
+                return 0;
+
+            case YIELD:
+                Thread.yield();
+                return idle;
+
+            default:
+                return idle;
+        }
+    }
+
+    int waitForSlot(int idle) {
+        //producers never busy-spin for long, they could starve the dispatcher thread
+        if (idle < SPIN_TRIES) {
+            return idle + 1;
+        }
+        if (mWaitStrategy == WaitStrategy.PARK) {
+            LockSupport.parkNanos(this, PRODUCER_PARK_NANOS);
+        } else {
+            Thread.yield();
+        }
+        return idle;
+    }
+
+    /**
+     * The thread must survive any throwable, just print it, like the bus does for subscribers.
+     */
+    static void runSafely(@NonNull Runnable runnable) {
+        try {
+            runnable.run();
+        } catch (Throwable e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.pgssoft.async_event_bus;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Thread hand-off used by the {@link EventBus}.
+ * The bus core does not know anything about threads of the platform, all it needs is provided by the Scheduler:
+ * the dispatcher thread, the UI thread, and threads of objects registered with DeliveryThread.AS_REGISTERED subscribers.
+ * <p/>
+ * The HandlerScheduler from the async_event_bus_lib is used on Android, and the {@link ThreadScheduler} elsewhere.
+ * Each bus instance have its own Scheduler.
+ */
+public interface Scheduler {
+
+    /**
+     * Get the executor of the dispatcher thread.
+     * It must execute runnables one by one, in order they were passed to it.
+     */
+    @NonNull
+    Executor getDispatcherExecutor();
+
+    /**
+     * Get the executor of the UI thread, used for the DeliveryThread.UI subscribers.
+     * It must execute runnables one by one, in order they were passed to it.
+     */
+    @NonNull
+    Executor getUiExecutor();
+
+    /**
+     * Assign given target object to thread calling this method, if the thread can execute runnables.
+     * Called by {@link EventBus#register(Object)} and {@link EventBus#assignThreadForTarget(Object)}.
+     *
+     * @param target @NonNull object to assign.
+     */
+    void assignThreadForTarget(@NonNull Object target);
+
+    /**
+     * Get the executor of the thread assigned to given target, used for DeliveryThread.AS_REGISTERED subscribers.
+     * Must return the same instance for all targets assigned to the same thread.
+     *
+     * @param target @NonNull the subscriber target object.
+     * @return executor, or null if target is not assigned to any thread. Then subscriber is called in background.
+     */
+    @Nullable
+    Executor getExecutorForTarget(@NonNull Object target);
+}
@@ -0,0 +1,80 @@
+package com.pgssoft.async_event_bus;
+
+import android.support.annotation.NonNull;
+
+import java.lang.reflect.Method;
+
+/**
+ * Report of a subscriber which was running longer than the budget, see {@link EventBus#setSlowSubscriberBudget(long)}.
+ * <p/>
+ * It is never thrown, it is passed to {@link EventBus#onSlowSubscriber(SlowSubscriberException)}.
+ * The stack trace is the stack of the delivery thread at the moment the subscriber was found running over the budget.
+ */
+public class SlowSubscriberException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    @NonNull
+    final Class<?> mTargetClass;
+    @NonNull
+    final Method mMethod;
+    @NonNull
+    final Class<?> mEventClass;
+    final long mElapsedMillis;
+    @NonNull
+    final String mThreadName;
+
+    /**
+     * Package access, only bus can make instances of this report.
+     */
+    SlowSubscriberException(@NonNull Class<?> targetClass, @NonNull Method method, @NonNull Class<?> eventClass,
+                            long elapsedMillis, @NonNull Thread thread, @NonNull StackTraceElement[] stackTrace) {
+        super(targetClass.getName() + "#" + method.getName() + "(" + eventClass.getSimpleName() + ") is running for "
+                + elapsedMillis + " ms on " + thread.getName());
+        mTargetClass = targetClass;
+        mMethod = method;
+        mEventClass = eventClass;
+        mElapsedMillis = elapsedMillis;
+        mThreadName = thread.getName();
+        setStackTrace(stackTrace);
+    }
+
+    /**
+     * The class of the subscriber object.
+     */
+    @NonNull
+    public Class<?> getTargetClass() {
+        return mTargetClass;
+    }
+
+    /**
+     * The subscriber method, may be declared by a superclass of the target class.
+     */
+    @NonNull
+    public Method getMethod() {
+        return mMethod;
+    }
+
+    /**
+     * The class of the delivered event.
+     */
+    @NonNull
+    public Class<?> getEventClass() {
+        return mEventClass;
+    }
+
+    /**
+     * How long the subscriber was running when it was reported, it may still be running.
+     */
+    public long getElapsedMillis() {
+        return mElapsedMillis;
+    }
+
+    /**
+     * Name of the delivery thread.
+     */
+    @NonNull
+    public String getThreadName() {
+        return mThreadName;
+    }
+}
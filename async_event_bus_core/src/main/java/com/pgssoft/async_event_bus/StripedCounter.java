@@ -0,0 +1,57 @@
+package com.pgssoft.async_event_bus;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counter updated by many threads at once, like the LongAdder (which is not available on Android).
+ * <p/>
+ * Value is split into cells, each thread updates the cell picked by its id, so threads rarely contend on
+ * one cache line. Cells are padded, so two cells never share a cache line. Reading sums all cells.
+ * <p/>
+ * Note: package access, class is for internal bus use.
+ */
+/*package*/ final class StripedCounter {
+
+    static final int STRIPES;
+
+    /**
+     * Longs per cell, 64 bytes.
+     */
+    static final int PADDING = 8;
+
+    static {
+        int stripes = 1;
+        while (stripes < Runtime.getRuntime().availableProcessors() * 2 && stripes < 64) {
+            stripes <<= 1;
+        }
+        STRIPES = stripes;
+    }
+
+    final AtomicLongArray mCells = new AtomicLongArray(STRIPES * PADDING);
+
+    void increment() {
+        add(1);
+    }
+
+    void decrement() {
+        add(-1);
+    }
+
+    void add(long value) {
+        mCells.getAndAdd(getCell(), value);
+    }
+
+    long sum() {
+        long result = 0;
+        for (int i = 0; i < STRIPES; i++) {
+            result += mCells.get(i * PADDING);
+        }
+        return result;
+    }
+
+    static int getCell() {
+        long id = Thread.currentThread().getId();
+        int hash = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        return ((hash ^ (hash >>> 16)) & (STRIPES - 1)) * PADDING;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2007 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.pgssoft.async_event_bus;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a method as an event handler.
+ *
+ * <p>The method's first (and only) parameter defines the event type.
+ * <p>If this annotation is applied to methods with zero parameters or more than one parameter, the object containing
+ * the method will not be able to register for event delivery from the Bus.
+ * Register method fails fast by throwing runtime exceptions in these cases.
+ * <p>If conflate is set, subscriber that did not yet receive an event, will receive just the latest one. Events are
+ * conflated by event class, or by the key, if event implements {@link ConflatableEvent}.
+ * <p>If capacity is set, no more than capacity events can wait for delivery to the subscriber. What happens to
+ * the next event is defined by the overflow policy.
+ * <p>If debounce or throttle is set, the subscriber receives only some of the events, the rest is dropped by
+ * the dispatcher, before any thread hop.
+ * <p>Annotated methods of superclasses are subscribed too. A method overriding an annotated one is called once,
+ * whether it is annotated or not.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Subscribe {
+
+    EventBus.DeliveryThread value() default EventBus.DeliveryThread.AS_REGISTERED;
+
+    /**
+     * Deliver only the latest pending event. Has no effect for DeliveryThread.DISPATCHER subscribers,
+     * they are called immediately anyway.
+     */
+    boolean conflate() default false;
+
+    /**
+     * Maximum number of events waiting for the delivery, 0 means no limit. Has no effect for
+     * DeliveryThread.DISPATCHER subscribers, and for conflated events.
+     */
+    int capacity() default 0;
+
+    /**
+     * What to do with an event, if there are already capacity events waiting for the delivery.
+     */
+    EventBus.OverflowPolicy overflow() default EventBus.OverflowPolicy.DROP_NEWEST;
+
+    /**
+     * Maximum time, in milliseconds, to wait for the room in the delivery queue, for the OverflowPolicy.BLOCK.
+     */
+    long overflowTimeout() default 100;
+
+    /**
+     * Deliver only the latest event, after this many milliseconds passed without a new event, 0 means no debounce.
+     * Useful for search-as-you-type, where only the final text matters.
+     */
+    long debounce() default 0;
+
+    /**
+     * Deliver at most one event per this many milliseconds, 0 means no throttle. The first event is delivered
+     * immediately, the latest of the following events is delivered when the period ends.
+     * Can not be used together with debounce.
+     */
+    long throttle() default 0;
+
+}
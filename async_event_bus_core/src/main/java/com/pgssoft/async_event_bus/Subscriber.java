@@ -0,0 +1,376 @@
+package com.pgssoft.async_event_bus;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wraps a single-argument 'subscriber' method on a specific object, a target.
+ * Immutable, except that mTarget reference can be cleared (by GC), and pending events.
+ * <p/>
+ * Two Subscribers are equivalent when they refer to the same method on the same object instance( not class).
+ * This equality property is used to ensure that no handler method is registered more than once.
+ * <p/>
+ * Note: package access, the class is for internal bus use.
+ */
+/*package*/ class Subscriber {
+
+    /**
+     * The target, and instance to object to deliver the event to.
+     */
+    @NonNull
+    final WeakReference<Object> mTarget;
+
+    /**
+     * The method in target, handler for this certain event class.
+     * Descriptor is shared by all Subscribers for this method.
+     */
+    @NonNull
+    final EventBus.MethodDescLinkedListItem mMethodDesc;
+
+    /**
+     * Invoker used to call the method, got from mMethodDesc.
+     */
+    @NonNull
+    final SubscriberInvoker mInvoker;
+
+    /**
+     * The delivery thread, got from @Subscribe
+     */
+    @NonNull
+    final EventBus.DeliveryThread mThread;
+
+    /**
+     * Conflate all events, got from @Subscribe
+     */
+    final boolean mConflate;
+
+    /**
+     * Maximum number of events waiting for delivery, 0 if unbounded. Got from @Subscribe, as overflow attributes.
+     */
+    final int mCapacity;
+    @NonNull
+    final EventBus.OverflowPolicy mOverflow;
+    final long mOverflowTimeout;
+
+    /**
+     * Debounce or throttle, null if subscriber is not rate limited. Got from @Subscribe.
+     */
+    @Nullable
+    final RateLimiter mRateLimiter;
+
+    /**
+     * Events waiting for delivery, for bounded subscribers only.
+     * Guarded by itself.
+     */
+    @Nullable
+    final ArrayDeque<Object> mQueue;
+
+    /**
+     * Mailbox of the target, shared by all its DeliveryThread.BACKGROUND_SERIAL subscribers in one bus.
+     * Set by {@link EventBus#register(Object)}, before the subscriber is visible for dispatchers.
+     */
+    @Nullable
+    Mailbox mMailbox;
+
+    /**
+     * Set when the subscriber is removed from the bus, deferred events are not delivered anymore.
+     */
+    volatile boolean mRemoved;
+
+    /**
+     * Object hash code, cached because it will not change.
+     */
+    final int mHashCode;
+
+    /**
+     * Events waiting for the delivery, for conflated events only.
+     * Key: conflation key
+     * Value: the latest event with this key.
+     * Created lazily, most subscribers never need it.
+     */
+    volatile ConcurrentHashMap<Object, Object> mPendingEvents;
+
+    Subscriber(@NonNull Object target, @NonNull Method method, @NonNull EventBus.DeliveryThread thread) {
+        this(target, new EventBus.MethodDescLinkedListItem(method, new SubscriberMethodInfo(method, thread), null));
+    }
+
+    Subscriber(@NonNull Object target, @NonNull EventBus.MethodDescLinkedListItem methodDesc) {
+        this(new WeakReference<Object>(target), target, methodDesc);
+    }
+
+    /**
+     * The subscriber was removed from the bus, drop the event deferred by the rate limiter.
+     */
+    void onRemoved() {
+        mRemoved = true;
+        if (mRateLimiter != null) {
+            mRateLimiter.cancel();
+        }
+    }
+
+    /**
+     * @param reference @NonNull reference to the target, shared by all Subscribers of the target.
+     */
+    Subscriber(@NonNull WeakReference<Object> reference, @NonNull Object target,
+               @NonNull EventBus.MethodDescLinkedListItem methodDesc) {
+        mTarget = reference;
+        mMethodDesc = methodDesc;
+        mThread = methodDesc.info.mThread;
+        mInvoker = methodDesc.info.mInvoker;
+        mConflate = methodDesc.info.mConflate;
+        mCapacity = methodDesc.info.mCapacity;
+        mOverflow = methodDesc.info.mOverflow;
+        mOverflowTimeout = methodDesc.info.mOverflowTimeout;
+        mQueue = mCapacity > 0 ? new ArrayDeque<Object>(Math.min(mCapacity, 16)) : null;
+        mRateLimiter = methodDesc.info.mDebounce > 0 || methodDesc.info.mThrottle > 0
+                ? new RateLimiter(this, methodDesc.info.mDebounce, methodDesc.info.mThrottle) : null;
+        //Compute hash code eagerly since we know it will be used frequently,
+        //and finally the target may be GCed and became null
+        mHashCode = (31 + methodDesc.hashCode()) * 31 + System.identityHashCode(target);
+    }
+
+    /**
+     * Invokes the wrapped handler method to handle {@code event}, using mInvoker.
+     *
+     * @param event @NonNull event to handle
+     */
+    void deliverEvent(@NonNull EventBus bus, @NonNull Object event) {
+        deliverEvent(bus, event, 0);
+    }
+
+    /**
+     * Deliver event, traced with given correlation ID, or not traced if it is 0.
+     */
+    void deliverEvent(@NonNull EventBus bus, @NonNull Object event, long traceId) {
+        try {
+            //Important: get solid reference first, then check null on this reference!
+            Object target = mTarget.get();
+            if (target != null) {
+                SubscriberWatchdog watchdog = bus.mWatchdog;
+                SubscriberWatchdog.Slot slot = null;
+                if (watchdog != null && (mThread == EventBus.DeliveryThread.UI || mThread == EventBus.DeliveryThread.DISPATCHER)) {
+                    slot = watchdog.begin(this, target, event);
+                }
+                try {
+                    EventTracer tracer = bus.mTracer;
+                    if (tracer == null || traceId == 0) {
+                        invoke(bus.mStats, target, event);
+                    } else {
+                        invokeTraced(bus.mStats, tracer, target, event, traceId);
+                    }
+                } finally {
+                    if (slot != null) {
+                        watchdog.end(slot);
+                    }
+                }
+            }
+        } catch (InvocationTargetException e) {
+            //here exception would be InvocationTargetException. We need to unpack original exception
+            bus.onSubscriberException(mTarget.get(), mMethodDesc.getMethod(), e.getCause());
+        } catch (Throwable e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Invoke the method, timed if stats are enabled.
+     */
+    void invoke(@Nullable EventBusStats stats, @NonNull Object target, @NonNull Object event) throws Exception {
+        if (stats == null) {
+            mInvoker.invoke(target, event);
+        } else {
+            long start = System.nanoTime();
+            try {
+                mInvoker.invoke(target, event);
+            } finally {
+                stats.onExecuted(mMethodDesc, System.nanoTime() - start);
+            }
+        }
+    }
+
+    /**
+     * Invoke with tracer callbacks. Events posted by the subscriber meanwhile inherit the correlation ID.
+     */
+    void invokeTraced(@Nullable EventBusStats stats, @NonNull EventTracer tracer, @NonNull Object target,
+                      @NonNull Object event, long traceId) throws Exception {
+        long[] current = EventBus.mCurrentTraceId.get();
+        long previous = current[0];
+        current[0] = traceId;
+        Method method = mMethodDesc.getMethod();
+        tracer.onDeliveryStarted(traceId, event, target, method);
+        Throwable error = null;
+        try {
+            invoke(stats, target, event);
+        } catch (Exception e) {
+            error = e instanceof InvocationTargetException ? e.getCause() : e;
+            throw e;
+        } catch (Error e) {
+            error = e;
+            throw e;
+        } finally {
+            current[0] = previous;
+            tracer.onDeliveryCompleted(traceId, event, target, method, error);
+        }
+    }
+
+    /**
+     * Marks scheduled delivery of an event from mQueue.
+     * The event is taken from the queue when delivery starts, so oldest events can be dropped meanwhile.
+     */
+    static final Object QUEUED = new Object();
+
+    static final int QUEUE_ACCEPTED = 0;
+    static final int QUEUE_REPLACED_OLDEST = 1;
+    static final int QUEUE_REJECTED = 2;
+
+    /**
+     * Put event to the delivery queue, for bounded subscribers only.
+     *
+     * @param mayBlock false if caller can not wait, even if the overflow policy is OverflowPolicy.BLOCK.
+     * @return QUEUE_ACCEPTED if event was added, the delivery of QUEUED have to be scheduled.
+     * QUEUE_REPLACED_OLDEST if event was added, but the oldest event was dropped, so there is no need to schedule delivery.
+     * QUEUE_REJECTED if event was not added.
+     */
+    int offerQueuedEvent(@NonNull Object event, boolean mayBlock) {
+        //noinspection ConstantConditions
+        synchronized (mQueue) {
+            if (mQueue.size() >= mCapacity) {
+                switch (mOverflow) {
+                    case DROP_OLDEST:
+                        mQueue.poll();
+                        mQueue.add(event);
+                        return QUEUE_REPLACED_OLDEST;
+
+                    case BLOCK:
+                        if (!mayBlock) return QUEUE_REJECTED;
+                        //monotonic clock, the wall clock may jump
+                        long remaining = TimeUnit.MILLISECONDS.toNanos(mOverflowTimeout);
+                        long deadline = System.nanoTime() + remaining;
+                        try {
+                            while (mQueue.size() >= mCapacity && remaining > 0) {
+                                TimeUnit.NANOSECONDS.timedWait(mQueue, remaining);
+                                remaining = deadline - System.nanoTime();
+                            }
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        if (mQueue.size() >= mCapacity) return QUEUE_REJECTED;
+                        break;
+
+                    default:
+                        return QUEUE_REJECTED;
+                }
+            }
+            mQueue.add(event);
+            return QUEUE_ACCEPTED;
+        }
+    }
+
+    /**
+     * Take the oldest event from the delivery queue.
+     */
+    @Nullable
+    Object takeQueuedEvent() {
+        //noinspection ConstantConditions
+        synchronized (mQueue) {
+            Object result = mQueue.poll();
+            if (mOverflow == EventBus.OverflowPolicy.BLOCK) {
+                mQueue.notifyAll();
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Get the event to deliver, for the scheduled delivery.
+     *
+     * @param event         scheduled event, or QUEUED.
+     * @param conflationKey conflation key, if event is conflated.
+     * @return event to deliver, or null if there is nothing to deliver.
+     */
+    @Nullable
+    Object resolveEvent(@Nullable Object event, @Nullable Object conflationKey) {
+        if (conflationKey != null) {
+            return takePendingEvent(conflationKey);
+        }
+        if (event == QUEUED) {
+            return takeQueuedEvent();
+        }
+        return event;
+    }
+
+    /**
+     * Get conflation key for given event.
+     *
+     * @return the key, or null if event should not be conflated for this subscriber.
+     */
+    @Nullable
+    Object getConflationKey(@NonNull Object event) {
+        if (event instanceof ConflatableEvent) {
+            return ((ConflatableEvent) event).getConflationKey();
+        }
+        return mConflate ? event.getClass() : null;
+    }
+
+    /**
+     * Store event as pending, replacing older pending event with same key.
+     *
+     * @return true if there was no pending event, and delivery have to be scheduled. If false, the delivery
+     * is scheduled already, and it will deliver the new event.
+     */
+    boolean offerPendingEvent(@NonNull Object conflationKey, @NonNull Object event) {
+        return getPendingEvents().put(conflationKey, event) == null;
+    }
+
+    /**
+     * Take the latest pending event with given key.
+     *
+     * @return the event, or null if there is no pending event.
+     */
+    @Nullable
+    Object takePendingEvent(@NonNull Object conflationKey) {
+        return getPendingEvents().remove(conflationKey);
+    }
+
+    @NonNull
+    ConcurrentHashMap<Object, Object> getPendingEvents() {
+        ConcurrentHashMap<Object, Object> result = mPendingEvents;
+        if (result == null) {
+            synchronized (this) {
+                result = mPendingEvents;
+                if (result == null) {
+                    result = new ConcurrentHashMap<Object, Object>();
+                    mPendingEvents = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public int hashCode() {
+        return mHashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+
+        if (obj == null || getClass() != obj.getClass() || mHashCode != ((Subscriber) obj).mHashCode) {
+            return false;
+        }
+
+        final Subscriber other = (Subscriber) obj;
+        return mTarget.get() == other.mTarget.get() && mMethodDesc.equals(other.mMethodDesc);
+    }
+
+}
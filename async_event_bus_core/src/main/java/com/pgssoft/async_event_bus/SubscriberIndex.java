@@ -0,0 +1,25 @@
+package com.pgssoft.async_event_bus;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * Index of subscriber methods, known at compile time.
+ * <p/>
+ * Indexes are generated by the async_event_bus_processor annotation processor, and have to be added
+ * to bus by the {@link EventBus#addIndex(SubscriberIndex)}, before any target is registered.
+ * When the target class is registered for the first time, the bus checks all indexes first, and scans
+ * the class using reflection only if no index knows the class.
+ */
+public interface SubscriberIndex {
+
+    /**
+     * Returns all subscriber methods declared in given class.
+     *
+     * @param targetClass @NonNull class to look for.
+     * @return subscriber methods declared in targetClass, or null if class is not indexed.
+     */
+    @Nullable
+    SubscriberMethodInfo[] getSubscriberMethods(@NonNull Class<?> targetClass);
+
+}
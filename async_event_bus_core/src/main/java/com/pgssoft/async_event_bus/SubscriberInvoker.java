@@ -0,0 +1,34 @@
+package com.pgssoft.async_event_bus;
+
+import android.support.annotation.NonNull;
+
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Calls one subscriber method on a target object.
+ * <p/>
+ * Invokers are created once per subscriber method, when the target class is scanned for the first time,
+ * and then shared by all Subscribers created for this method. Delivery is then just one interface call.
+ * <p/>
+ * Contract: if the subscriber method itself throws, the invoker must wrap the exception in the
+ * {@link InvocationTargetException}, the same way {@link java.lang.reflect.Method#invoke(Object, Object...)} does.
+ * Any other exception means that the invoker failed to call the method (ex. wrong event class).
+ * <p/>
+ * By default the bus uses reflection to call subscriber methods. Classes generated by the
+ * async_event_bus_processor annotation processor provide invokers which call subscriber methods directly.
+ *
+ * @see SubscriberIndex
+ */
+public interface SubscriberInvoker {
+
+    /**
+     * Calls the subscriber method.
+     *
+     * @param target @NonNull object owning the subscriber method.
+     * @param event  @NonNull event to pass to the subscriber method.
+     * @throws InvocationTargetException if subscriber method thrown an exception.
+     * @throws Exception                 if subscriber method can not be called.
+     */
+    void invoke(@NonNull Object target, @NonNull Object event) throws Exception;
+
+}
@@ -0,0 +1,115 @@
+package com.pgssoft.async_event_bus;
+
+import android.support.annotation.NonNull;
+
+import java.lang.reflect.Method;
+
+/**
+ * Describes one method with {@link Subscribe} annotation, as seen by {@link SubscriberIndex}.
+ * Holds all {@link Subscribe} attributes, and the invoker. Immutable.
+ */
+public final class SubscriberMethodInfo {
+
+    @NonNull
+    final String mMethodName;
+    @NonNull
+    final Class<?> mEventType;
+    @NonNull
+    final EventBus.DeliveryThread mThread;
+    @NonNull
+    final SubscriberInvoker mInvoker;
+    final boolean mConflate;
+    final int mCapacity;
+    @NonNull
+    final EventBus.OverflowPolicy mOverflow;
+    final long mOverflowTimeout;
+    final long mDebounce;
+    final long mThrottle;
+
+    /**
+     * Creates a new SubscriberMethodInfo, with default values for all other {@link Subscribe} attributes.
+     *
+     * @param methodName @NonNull name of the subscriber method.
+     * @param eventType  @NonNull the type of the only subscriber method parameter.
+     * @param thread     @NonNull the delivery thread, the value of {@link Subscribe} annotation.
+     * @param invoker    @NonNull invoker able to call the subscriber method.
+     */
+    public SubscriberMethodInfo(@NonNull String methodName, @NonNull Class<?> eventType,
+                                @NonNull EventBus.DeliveryThread thread, @NonNull SubscriberInvoker invoker) {
+        this(methodName, eventType, thread, false, 0, EventBus.OverflowPolicy.DROP_NEWEST, 100, invoker);
+    }
+
+    /**
+     * Creates a new SubscriberMethodInfo.
+     *
+     * @param methodName      @NonNull name of the subscriber method.
+     * @param eventType       @NonNull the type of the only subscriber method parameter.
+     * @param thread          @NonNull the delivery thread, the value of {@link Subscribe} annotation.
+     * @param conflate        the {@link Subscribe#conflate()} value.
+     * @param capacity        the {@link Subscribe#capacity()} value.
+     * @param overflow        @NonNull the {@link Subscribe#overflow()} value.
+     * @param overflowTimeout the {@link Subscribe#overflowTimeout()} value.
+     * @param invoker         @NonNull invoker able to call the subscriber method.
+     * @throws IllegalArgumentException if capacity or overflowTimeout is negative.
+     */
+    public SubscriberMethodInfo(@NonNull String methodName, @NonNull Class<?> eventType,
+                                @NonNull EventBus.DeliveryThread thread, boolean conflate,
+                                int capacity, @NonNull EventBus.OverflowPolicy overflow, long overflowTimeout,
+                                @NonNull SubscriberInvoker invoker) {
+        this(methodName, eventType, thread, conflate, capacity, overflow, overflowTimeout, 0, 0, invoker);
+    }
+
+    /**
+     * Creates a new SubscriberMethodInfo.
+     *
+     * @param methodName      @NonNull name of the subscriber method.
+     * @param eventType       @NonNull the type of the only subscriber method parameter.
+     * @param thread          @NonNull the delivery thread, the value of {@link Subscribe} annotation.
+     * @param conflate        the {@link Subscribe#conflate()} value.
+     * @param capacity        the {@link Subscribe#capacity()} value.
+     * @param overflow        @NonNull the {@link Subscribe#overflow()} value.
+     * @param overflowTimeout the {@link Subscribe#overflowTimeout()} value.
+     * @param debounce        the {@link Subscribe#debounce()} value.
+     * @param throttle        the {@link Subscribe#throttle()} value.
+     * @param invoker         @NonNull invoker able to call the subscriber method.
+     * @throws IllegalArgumentException if any number is negative, or both debounce and throttle are set.
+     */
+    public SubscriberMethodInfo(@NonNull String methodName, @NonNull Class<?> eventType,
+                                @NonNull EventBus.DeliveryThread thread, boolean conflate,
+                                int capacity, @NonNull EventBus.OverflowPolicy overflow, long overflowTimeout,
+                                long debounce, long throttle, @NonNull SubscriberInvoker invoker) {
+        if (capacity < 0 || overflowTimeout < 0) {
+            throw new IllegalArgumentException("Subscriber method " + methodName + " have negative capacity or overflowTimeout.");
+        }
+        if (debounce < 0 || throttle < 0 || (debounce > 0 && throttle > 0)) {
+            throw new IllegalArgumentException("Subscriber method " + methodName + " have negative debounce or throttle, or both are set.");
+        }
+        mMethodName = methodName;
+        mEventType = eventType;
+        mThread = thread;
+        mConflate = conflate;
+        mCapacity = capacity;
+        mOverflow = overflow;
+        mOverflowTimeout = overflowTimeout;
+        mDebounce = debounce;
+        mThrottle = throttle;
+        mInvoker = invoker;
+    }
+
+    /**
+     * Creates a new SubscriberMethodInfo for the method found by the reflection scan.
+     */
+    SubscriberMethodInfo(@NonNull Method method, @NonNull Subscribe annotation) {
+        this(method.getName(), method.getParameterTypes()[0], annotation.value(), annotation.conflate(),
+                annotation.capacity(), annotation.overflow(), annotation.overflowTimeout(),
+                annotation.debounce(), annotation.throttle(), new ReflectiveInvoker(method));
+    }
+
+    /**
+     * Creates a new SubscriberMethodInfo for the method, with given thread and default values for all other attributes.
+     */
+    SubscriberMethodInfo(@NonNull Method method, @NonNull EventBus.DeliveryThread thread) {
+        this(method.getName(), method.getParameterTypes()[0], thread, new ReflectiveInvoker(method));
+    }
+
+}
@@ -0,0 +1,186 @@
+package com.pgssoft.async_event_bus;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Finds UI and DISPATCHER subscribers running longer than the budget.
+ * <p/>
+ * Each delivery thread has a slot, where the delivery marks the running subscriber and its start time.
+ * The watchdog thread samples slots every half of the budget, and reports every delivery over the budget once,
+ * with the current stack of its thread. Delivery does not allocate, it does few plain and volatile writes.
+ * <p/>
+ * The watchdog thread parks when no watched delivery is running, and the next delivery unparks it.
+ * <p/>
+ * Note: package access, class is for internal bus use.
+ */
+/*package*/ class SubscriberWatchdog implements Runnable {
+
+    /**
+     * Creates a new SubscriberWatchdog, and starts its thread.
+     *
+     * @param bus          @NonNull the bus to report to.
+     * @param budgetMillis deliveries running longer are reported.
+     */
+    SubscriberWatchdog(@NonNull EventBus bus, long budgetMillis) {
+        mEventBus = bus;
+        mBudgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+        mThread = new Thread(this, bus.mName + ".Watchdog");
+        mThread.setDaemon(true);
+        mThread.start();
+    }
+
+    /**
+     * Mark start of the delivery in the current thread.
+     *
+     * @return the slot to pass to {@link #end(Slot)}, null for nested deliveries, covered by the outer one.
+     */
+    @Nullable
+    Slot begin(@NonNull Subscriber subscriber, @NonNull Object target, @NonNull Object event) {
+        Slot slot = mSlot.get();
+        if (slot.mStart != 0) {
+            return null;
+        }
+        slot.mSubscriber = subscriber;
+        slot.mTargetClass = target.getClass();
+        slot.mEventClass = event.getClass();
+        slot.mSequence++;
+        slot.mStart = System.nanoTime();
+        if (mIdle) {
+            LockSupport.unpark(mThread);
+        }
+        return slot;
+    }
+
+    /**
+     * Mark end of the delivery.
+     */
+    void end(@NonNull Slot slot) {
+        slot.mStart = 0;
+    }
+
+    /**
+     * Stop the watchdog thread.
+     */
+    void stop() {
+        mRunning = false;
+        LockSupport.unpark(mThread);
+    }
+
+    //////////////////////////////////////////////////////////////////////////////////////////
+    // implementation
+
+    /**
+     * Delivery in progress in one thread. Written by the thread only, read by the watchdog.
+     */
+    static class Slot {
+        @NonNull
+        final WeakReference<Thread> mThread;
+
+        Subscriber mSubscriber;
+        Class<?> mTargetClass;
+        Class<?> mEventClass;
+        volatile long mSequence;
+        /**
+         * System.nanoTime() of the delivery start, 0 if no delivery is running. Written last, so it publishes the rest.
+         */
+        volatile long mStart;
+
+        /**
+         * The last reported delivery, accessed by the watchdog thread only.
+         */
+        long mReportedSequence;
+
+        Slot(@NonNull Thread thread) {
+            mThread = new WeakReference<Thread>(thread);
+        }
+    }
+
+    @NonNull
+    final EventBus mEventBus;
+    final long mBudgetNanos;
+    @NonNull
+    final Thread mThread;
+    volatile boolean mRunning = true;
+
+    /**
+     * Set while the watchdog thread is parked without a deadline, deliveries have to unpark it.
+     */
+    volatile boolean mIdle;
+
+    /**
+     * Slots of all threads which delivered since the watchdog was started.
+     * Slots of dead threads are removed by the watchdog thread.
+     */
+    final CopyOnWriteArrayList<Slot> mSlots = new CopyOnWriteArrayList<Slot>();
+
+    final ThreadLocal<Slot> mSlot = new ThreadLocal<Slot>() {
+        @Override
+        protected Slot initialValue() {
+            Slot slot = new Slot(Thread.currentThread());
+            mSlots.add(slot);
+            return slot;
+        }
+    };
+
+    @Override
+    public void run() {
+        while (mRunning) {
+            if (sample()) {
+                LockSupport.parkNanos(this, mBudgetNanos / 2);
+            } else {
+                mIdle = true;
+                //re-check, a delivery could start before it saw mIdle
+                if (!sample()) {
+                    LockSupport.park(this);
+                }
+                mIdle = false;
+            }
+        }
+    }
+
+    /**
+     * Check all slots, report deliveries over the budget.
+     *
+     * @return true if any delivery is running.
+     */
+    boolean sample() {
+        boolean running = false;
+        for (Slot slot : mSlots) {
+            Thread thread = slot.mThread.get();
+            if (thread == null || !thread.isAlive()) {
+                mSlots.remove(slot);
+                continue;
+            }
+            long start = slot.mStart;
+            if (start == 0) continue;
+            running = true;
+
+            long sequence = slot.mSequence;
+            if (sequence == slot.mReportedSequence) continue;
+            long elapsed = System.nanoTime() - start;
+            if (elapsed < mBudgetNanos) continue;
+
+            Subscriber subscriber = slot.mSubscriber;
+            Class<?> targetClass = slot.mTargetClass;
+            Class<?> eventClass = slot.mEventClass;
+            StackTraceElement[] stackTrace = thread.getStackTrace();
+            //the delivery could end meanwhile, then fields and stack may belong to other delivery
+            if (slot.mStart != start || slot.mSequence != sequence) continue;
+
+            slot.mReportedSequence = sequence;
+            try {
+                mEventBus.onSlowSubscriber(new SlowSubscriberException(targetClass, subscriber.mMethodDesc.getMethod(),
+                        eventClass, TimeUnit.NANOSECONDS.toMillis(elapsed), thread, stackTrace));
+            } catch (Throwable e) {
+                e.printStackTrace();
+            }
+        }
+        return running;
+    }
+}
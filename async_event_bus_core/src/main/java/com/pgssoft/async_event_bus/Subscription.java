@@ -0,0 +1,18 @@
+package com.pgssoft.async_event_bus;
+
+/**
+ * Handle of a functional subscription, see {@link EventBus#subscribe(Class, EventBus.DeliveryThread, EventHandler)}.
+ */
+public interface Subscription {
+
+    /**
+     * End the subscription. The handler gets no more events, but deliveries already started may complete.
+     * Closing closed subscription does nothing.
+     */
+    void close();
+
+    /**
+     * @return true until the subscription is closed.
+     */
+    boolean isActive();
+}
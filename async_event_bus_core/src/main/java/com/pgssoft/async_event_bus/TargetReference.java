@@ -0,0 +1,72 @@
+package com.pgssoft.async_event_bus;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Weak reference to a registered target, shared by all its Subscribers, and the key of the bus reverse index.
+ * <p/>
+ * References are equal if they point to the same target, so a temporary reference can be used to look up
+ * the registered one. Cleared reference is equal to itself only, but it keeps the hash code,
+ * so it still can be removed from the index, when it is polled from the bus ReferenceQueue.
+ * <p/>
+ * Note: package access, class is for internal bus use.
+ */
+/*package*/ class TargetReference extends WeakReference<Object> {
+
+    final int mHashCode;
+
+    /**
+     * Registered subscribers of the target.
+     * Key: event type
+     * Value: subscribers of the target, the same instances as in the bus registry arrays.
+     * Guarded by the bus registry monitor.
+     */
+    final Map<Class<?>, List<Subscriber>> mSubscribers = new HashMap<Class<?>, List<Subscriber>>();
+
+    /**
+     * Mailbox of all DeliveryThread.BACKGROUND_SERIAL subscribers of the target, created on first use.
+     */
+    Mailbox mMailbox;
+
+    TargetReference(@NonNull Object target, @Nullable ReferenceQueue<Object> queue) {
+        super(target, queue);
+        mHashCode = System.identityHashCode(target);
+    }
+
+    /**
+     * Get the mailbox of the target, create it if needed.
+     * Registered and subscribed subscribers of the target share it, so the target is called serially.
+     */
+    @NonNull
+    synchronized Mailbox getMailbox(@NonNull Executor executor) {
+        if (mMailbox == null) {
+            mMailbox = new Mailbox(executor);
+        }
+        return mMailbox;
+    }
+
+    @Override
+    public int hashCode() {
+        return mHashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof TargetReference) || mHashCode != ((TargetReference) obj).mHashCode) {
+            return false;
+        }
+        Object target = get();
+        return target != null && target == ((TargetReference) obj).get();
+    }
+}
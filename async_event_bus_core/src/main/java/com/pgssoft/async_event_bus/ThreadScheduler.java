@@ -0,0 +1,139 @@
+package com.pgssoft.async_event_bus;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * The {@link Scheduler} for plain JVM, without Android.
+ * <p/>
+ * Dispatcher is a lane of the {@link DispatcherPool#getShared()} pool, or the executor passed to the constructor,
+ * ex. the {@link RingBufferExecutor}.
+ * Plain Java threads can not execute runnables on request, so all objects
+ * with DeliveryThread.AS_REGISTERED subscribers are served by one "as registered" executor, and there is no real
+ * UI thread, the DeliveryThread.UI subscribers are served by the UI executor passed to the constructor, or by
+ * one thread shared by all buses.
+ * <p/>
+ * All threads created by this class are daemon threads, they do not keep the JVM alive.
+ */
+public class ThreadScheduler implements Scheduler {
+
+    /**
+     * Creates a new ThreadScheduler with own "as registered" thread, and dispatcher in the shared pool.
+     *
+     * @param name @NonNull prefix for threads names, for debugging purposes.
+     */
+    public ThreadScheduler(@NonNull String name) {
+        this(name, null, null);
+    }
+
+    /**
+     * Creates a new ThreadScheduler, with dispatcher in the shared pool.
+     *
+     * @param name                 @NonNull prefix for threads names, for debugging purposes.
+     * @param uiExecutor           @Nullable executor for DeliveryThread.UI subscribers, for example one posting to
+     *                             the Swing event dispatch thread. It must execute runnables in order.
+     *                             Pass null to use one thread shared by all buses.
+     * @param asRegisteredExecutor @Nullable executor for DeliveryThread.AS_REGISTERED subscribers.
+     *                             It must execute runnables in order. Pass null to use own thread.
+     */
+    public ThreadScheduler(@NonNull String name, @Nullable Executor uiExecutor, @Nullable Executor asRegisteredExecutor) {
+        this(name, DispatcherPool.getShared().nextLane(), uiExecutor, asRegisteredExecutor);
+    }
+
+    /**
+     * Creates a new ThreadScheduler.
+     *
+     * @param name                 @NonNull prefix for threads names, for debugging purposes.
+     * @param dispatcherExecutor   @Nullable executor of the dispatcher thread. It must execute runnables in order,
+     *                             one by one, ex. {@link DispatcherPool#nextLane()}. Pass null to use own thread.
+     * @param uiExecutor           @Nullable executor for DeliveryThread.UI subscribers, for example one posting to
+     *                             the Swing event dispatch thread. It must execute runnables in order.
+     *                             Pass null to use one thread shared by all buses.
+     * @param asRegisteredExecutor @Nullable executor for DeliveryThread.AS_REGISTERED subscribers.
+     *                             It must execute runnables in order. Pass null to use own thread.
+     */
+    public ThreadScheduler(@NonNull String name, @Nullable Executor dispatcherExecutor,
+                           @Nullable Executor uiExecutor, @Nullable Executor asRegisteredExecutor) {
+        mDispatcherExecutor = dispatcherExecutor != null ? dispatcherExecutor
+                : Executors.newSingleThreadExecutor(new DaemonThreadFactory(name + ".dispatcher"));
+
+        if (uiExecutor != null) {
+            mUiExecutor = uiExecutor;
+        } else {
+            synchronized (ThreadScheduler.class) {
+                if (mDefaultUiExecutor == null) {
+                    mDefaultUiExecutor = Executors.newSingleThreadExecutor(new DaemonThreadFactory("EventBus.UI"));
+                }
+                mUiExecutor = mDefaultUiExecutor;
+            }
+        }
+
+        mAsRegisteredExecutor = asRegisteredExecutor != null ? asRegisteredExecutor
+                : Executors.newSingleThreadExecutor(new DaemonThreadFactory(name + ".registered"));
+    }
+
+    @NonNull
+    @Override
+    public Executor getDispatcherExecutor() {
+        return mDispatcherExecutor;
+    }
+
+    @NonNull
+    @Override
+    public Executor getUiExecutor() {
+        return mUiExecutor;
+    }
+
+    @Override
+    public void assignThreadForTarget(@NonNull Object target) {
+        //all targets are served by the same executor.
+    }
+
+    @Nullable
+    @Override
+    public Executor getExecutorForTarget(@NonNull Object target) {
+        return mAsRegisteredExecutor;
+    }
+
+    //////////////////////////////////////////////////////////////////////////////////////////
+    // implementation
+
+    /**
+     * The dispatcher thread. One thread (or one lane), so runnables are executed in order.
+     */
+    @NonNull
+    final Executor mDispatcherExecutor;
+
+    @NonNull
+    final Executor mUiExecutor;
+
+    @NonNull
+    final Executor mAsRegisteredExecutor;
+
+    /**
+     * one, shared instance of the UI executor, used in case if application didn't provided any.
+     */
+    static Executor mDefaultUiExecutor;
+
+    /**
+     * Creates named daemon threads.
+     */
+    static class DaemonThreadFactory implements ThreadFactory {
+        final String mName;
+
+        DaemonThreadFactory(@NonNull String name) {
+            mName = name;
+        }
+
+        @Override
+        public Thread newThread(@NonNull Runnable r) {
+            Thread thread = new Thread(r, mName);
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
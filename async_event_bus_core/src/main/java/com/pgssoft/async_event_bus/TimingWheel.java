@@ -0,0 +1,271 @@
+package com.pgssoft.async_event_bus;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Timer of delayed posts, a hashed timing wheel.
+ * <p/>
+ * Time is divided into ticks, and the wheel has a bucket for every tick of one round. Each timeout is linked
+ * into the bucket of its deadline tick, later rounds included, so schedule and cancel are O(1), no matter
+ * how many timeouts are pending. Every tick the timer thread expires due timeouts of one bucket.
+ * <p/>
+ * Timeouts are never expired before their deadline, but may be expired up to one tick later.
+ * The timer thread parks when no timeout is pending, so an idle wheel does not wake the device.
+ * <p/>
+ * Other threads never touch buckets. New, cancelled and rescheduled timeouts are passed to the timer thread
+ * through a lock-free queue, and the thread links/unlinks them before processing the next bucket.
+ * <p/>
+ * Note: package access, class is for internal bus use.
+ */
+/*package*/ class TimingWheel {
+
+    static final int PENDING = 0;
+    static final int RESCHEDULING = 1;
+    static final int EXPIRED = 2;
+    static final int CANCELLED = 3;
+
+    /**
+     * Creates a new TimingWheel, and starts its thread.
+     *
+     * @param name       @NonNull name of the timer thread.
+     * @param tickMillis length of one tick, the precision of the timer.
+     * @param wheelSize  number of buckets, rounded up to a power of 2.
+     */
+    TimingWheel(@NonNull String name, long tickMillis, int wheelSize) {
+        mTickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        int size = 1;
+        while (size < wheelSize) {
+            size <<= 1;
+        }
+        mBuckets = new Timeout[size];
+        mMask = size - 1;
+        mStartTime = System.nanoTime();
+
+        mThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                runWheel();
+            }
+        }, name);
+        mThread.setDaemon(true);
+        mThread.start();
+    }
+
+    /**
+     * Run the task on the timer thread after given number of milliseconds.
+     * Task should be short, ex. passing something to other executor.
+     *
+     * @return @NonNull handle to cancel or reschedule the task.
+     */
+    @NonNull
+    Timeout schedule(@NonNull Runnable task, long milliseconds) {
+        Timeout timeout = new Timeout(this, task);
+        timeout.mDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, milliseconds));
+        enqueue(timeout);
+        return timeout;
+    }
+
+    //////////////////////////////////////////////////////////////////////////////////////////
+    // implementation
+
+    final long mTickNanos;
+    final long mStartTime;
+
+    /**
+     * Heads of buckets, doubly linked lists of timeouts. Timer thread only.
+     */
+    @NonNull
+    final Timeout[] mBuckets;
+    final int mMask;
+
+    /**
+     * Number of timeouts linked into buckets. Timer thread only.
+     */
+    int mLinkedCount;
+
+    /**
+     * New, rescheduled and cancelled timeouts, waiting for the timer thread.
+     */
+    final Queue<Timeout> mChanges = new ConcurrentLinkedQueue<Timeout>();
+
+    @NonNull
+    final Thread mThread;
+
+    /**
+     * Set while the timer thread is parked without a deadline, producers have to unpark it.
+     */
+    volatile boolean mIdle;
+
+    void enqueue(@NonNull Timeout timeout) {
+        mChanges.add(timeout);
+        if (mIdle) {
+            LockSupport.unpark(mThread);
+        }
+    }
+
+    long getTick(long nanoTime) {
+        return (nanoTime - mStartTime) / mTickNanos;
+    }
+
+    void runWheel() {
+        //next tick to process
+        long tick = getTick(System.nanoTime());
+        while (true) {
+            processChanges(tick);
+            if (mLinkedCount == 0) {
+                mIdle = true;
+                //re-check after the flag is visible, a producer could enqueue meanwhile
+                if (mChanges.isEmpty()) {
+                    LockSupport.park(this);
+                }
+                mIdle = false;
+                //wheel was empty, no bucket was skipped
+                tick = getTick(System.nanoTime());
+                continue;
+            }
+
+            long tickEnd = mStartTime + (tick + 1) * mTickNanos;
+            long wait = tickEnd - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(this, wait);
+                continue;
+            }
+
+            processChanges(tick);
+            expire(tick, tickEnd);
+            tick++;
+        }
+    }
+
+    /**
+     * Link new and rescheduled timeouts, unlink cancelled ones.
+     *
+     * @param tick the next tick to process. Timeouts due before it go to its bucket.
+     */
+    void processChanges(long tick) {
+        Timeout timeout;
+        while ((timeout = mChanges.poll()) != null) {
+            if (timeout.mLinked) {
+                unlink(timeout);
+            }
+            if (timeout.mState.get() == PENDING) {
+                long deadlineTick = Math.max(tick, getTick(timeout.mDeadline));
+                link(timeout, (int) (deadlineTick & mMask));
+            }
+        }
+    }
+
+    /**
+     * Expire all due timeouts of the tick bucket. Timeouts of later rounds stay linked.
+     */
+    void expire(long tick, long tickEnd) {
+        Timeout timeout = mBuckets[(int) (tick & mMask)];
+        while (timeout != null) {
+            Timeout next = timeout.mNext;
+            if (timeout.mState.get() != PENDING) {
+                //cancelled or being rescheduled, will be enqueued again if needed
+                unlink(timeout);
+            } else if (timeout.mDeadline < tickEnd) {
+                unlink(timeout);
+                if (timeout.mState.compareAndSet(PENDING, EXPIRED)) {
+                    try {
+                        timeout.mTask.run();
+                    } catch (Throwable e) {
+                        //timer must survive, just print it, like the bus does for subscribers.
+                        e.printStackTrace();
+                    }
+                }
+            }
+            timeout = next;
+        }
+    }
+
+    void link(@NonNull Timeout timeout, int bucket) {
+        Timeout head = mBuckets[bucket];
+        timeout.mBucket = bucket;
+        timeout.mPrev = null;
+        timeout.mNext = head;
+        if (head != null) {
+            head.mPrev = timeout;
+        }
+        mBuckets[bucket] = timeout;
+        timeout.mLinked = true;
+        mLinkedCount++;
+    }
+
+    void unlink(@NonNull Timeout timeout) {
+        if (timeout.mPrev != null) {
+            timeout.mPrev.mNext = timeout.mNext;
+        } else {
+            mBuckets[timeout.mBucket] = timeout.mNext;
+        }
+        if (timeout.mNext != null) {
+            timeout.mNext.mPrev = timeout.mPrev;
+        }
+        timeout.mPrev = null;
+        timeout.mNext = null;
+        timeout.mLinked = false;
+        mLinkedCount--;
+    }
+
+    static class Timeout implements PendingPost {
+        @NonNull
+        final TimingWheel mWheel;
+        @NonNull
+        final Runnable mTask;
+
+        final AtomicInteger mState = new AtomicInteger(PENDING);
+
+        /**
+         * System.nanoTime() of the deadline. Written only in the PENDING state, before the timeout is enqueued.
+         */
+        volatile long mDeadline;
+
+        //bucket links, timer thread only
+        @Nullable
+        Timeout mPrev;
+        @Nullable
+        Timeout mNext;
+        int mBucket;
+        boolean mLinked;
+
+        Timeout(@NonNull TimingWheel wheel, @NonNull Runnable task) {
+            mWheel = wheel;
+            mTask = task;
+        }
+
+        @Override
+        public boolean cancel() {
+            if (!mState.compareAndSet(PENDING, CANCELLED)) {
+                return false;
+            }
+            //let the timer thread unlink it, so it does not hold the event until the deadline
+            mWheel.enqueue(this);
+            return true;
+        }
+
+        @Override
+        public boolean reschedule(long milliseconds) {
+            if (!mState.compareAndSet(PENDING, RESCHEDULING)) {
+                return false;
+            }
+            mDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, milliseconds));
+            mState.set(PENDING);
+            mWheel.enqueue(this);
+            return true;
+        }
+
+        @Override
+        public boolean isPending() {
+            int state = mState.get();
+            return state == PENDING || state == RESCHEDULING;
+        }
+    }
+}
@@ -0,0 +1,351 @@
+package com.pgssoft.async_event_bus;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Background executor with a deque per worker thread, and work stealing, like the ForkJoinPool
+ * (which is not available on older Android versions).
+ * <p/>
+ * Every worker has a FIFO submission queue, and a LIFO deque of runnables it forks to itself.
+ * Submitted runnables are spread round-robin over workers submission queues, so there is no single queue
+ * all producers contend on. Runnables submitted from a worker thread,
+ * ex. a re-submitted {@link Mailbox}, go to the submission queue of that worker, behind runnables waiting already.
+ * <p/>
+ * Runnables forked by the worker to itself, ex. deliveries of events sent by a BACKGROUND subscriber,
+ * go to its deque, and are executed first, newest first, while the data is still in its CPU cache.
+ * Idle workers steal the oldest runnables of busy workers, from deques first, then from submission queues.
+ * <p/>
+ * This is the background executor of every {@link EventBus} created without an Executor.
+ * Workers are parked when idle. Workers above the core number retire after being idle for the keep-alive time,
+ * and are started again when a runnable is submitted, and all running workers are busy.
+ */
+public class WorkStealingExecutor implements Executor {
+
+    /**
+     * Creates a new WorkStealingExecutor with a fixed number of threads, and starts them.
+     *
+     * @param name    @NonNull prefix for threads names, for debugging purposes.
+     * @param threads number of worker threads.
+     * @throws IllegalArgumentException if threads is less than 1.
+     */
+    public WorkStealingExecutor(@NonNull String name, int threads) {
+        this(name, threads, threads, 0, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Creates a new WorkStealingExecutor, and starts its core threads.
+     *
+     * @param name          @NonNull prefix for threads names, for debugging purposes.
+     * @param coreThreads   number of worker threads kept even if they are idle.
+     * @param maxThreads    maximum number of worker threads.
+     * @param keepAliveTime time after which idle workers above coreThreads retire.
+     * @param unit          @NonNull unit of the keepAliveTime.
+     * @throws IllegalArgumentException if maxThreads is less than 1, or less than coreThreads,
+     *                                  or coreThreads or keepAliveTime is negative.
+     */
+    public WorkStealingExecutor(@NonNull String name, int coreThreads, int maxThreads,
+                                long keepAliveTime, @NonNull TimeUnit unit) {
+        if (maxThreads < 1) {
+            throw new IllegalArgumentException("Executor needs at least one thread.");
+        }
+        if (coreThreads < 0 || coreThreads > maxThreads || keepAliveTime < 0) {
+            throw new IllegalArgumentException();
+        }
+        mName = name;
+        mCoreThreads = coreThreads;
+        mKeepAliveNanos = unit.toNanos(keepAliveTime);
+        mWorkers = new AtomicReferenceArray<Worker>(maxThreads);
+        for (int i = 0; i < coreThreads; i++) {
+            startWorker(i);
+        }
+    }
+
+    /**
+     * Submit the runnable, to the current worker, or to the next one.
+     */
+    @Override
+    public void execute(@NonNull Runnable command) {
+        if (command == null) {
+            throw new NullPointerException();
+        }
+        Worker worker = getWorker(Thread.currentThread());
+        //submission fails only if the worker retired meanwhile
+        while (worker == null || !worker.submit(command)) {
+            worker = nextWorker();
+        }
+        wakeUp(worker);
+    }
+
+    //////////////////////////////////////////////////////////////////////////////////////////
+    // implementation
+
+    @NonNull
+    final String mName;
+    final int mCoreThreads;
+    final long mKeepAliveNanos;
+
+    /**
+     * Worker slots, null if the worker of the slot is not started, or retired.
+     */
+    @NonNull
+    final AtomicReferenceArray<Worker> mWorkers;
+
+    final AtomicInteger mNextWorker = new AtomicInteger();
+
+    /**
+     * Execute the runnable, preferably by given thread.
+     *
+     * @param preferredThread @Nullable if it is a worker of this executor, runnable goes to its submission queue,
+     *                        or it is forked, if it is the current thread.
+     */
+    void execute(@NonNull Runnable command, @Nullable Thread preferredThread) {
+        if (command == null) {
+            throw new NullPointerException();
+        }
+        Worker worker = getWorker(preferredThread);
+        if (worker != null && worker == Thread.currentThread()) {
+            worker.fork(command);
+        } else {
+            //submission fails only if the worker retired meanwhile
+            while (worker == null || !worker.submit(command)) {
+                worker = nextWorker();
+            }
+        }
+        wakeUp(worker);
+    }
+
+    /**
+     * @return @Nullable the thread, if it is a worker of this executor.
+     */
+    @Nullable
+    Worker getWorker(@Nullable Thread thread) {
+        return thread instanceof Worker && ((Worker) thread).mExecutor == this ? (Worker) thread : null;
+    }
+
+    /**
+     * Get the next worker, round-robin. If its slot is empty, an idle worker is used instead,
+     * or if all workers are busy, a new worker is started in the slot.
+     */
+    @NonNull
+    Worker nextWorker() {
+        while (true) {
+            int index = (mNextWorker.getAndIncrement() & Integer.MAX_VALUE) % mWorkers.length();
+            Worker worker = mWorkers.get(index);
+            if (worker != null) {
+                return worker;
+            }
+            worker = getParkedWorker();
+            if (worker == null) {
+                worker = startWorker(index);
+            }
+            if (worker != null) {
+                return worker;
+            }
+        }
+    }
+
+    /**
+     * Start worker in the empty slot.
+     *
+     * @return @Nullable the worker, or null if other thread started a worker in this slot meanwhile.
+     */
+    @Nullable
+    Worker startWorker(int index) {
+        Worker worker = new Worker(this, index, mName + " #" + (index + 1));
+        if (!mWorkers.compareAndSet(index, null, worker)) {
+            return null;
+        }
+        worker.start();
+        return worker;
+    }
+
+    /**
+     * Try to retire the idle worker. Fails if a runnable was submitted to it meanwhile.
+     */
+    boolean retire(@NonNull Worker worker) {
+        synchronized (worker.mSubmissions) {
+            if (!worker.mSubmissions.isEmpty()) return false;
+            worker.mRetired = true;
+        }
+        mWorkers.compareAndSet(worker.mIndex, worker, null);
+        return true;
+    }
+
+    @Nullable
+    Worker getParkedWorker() {
+        for (int i = 0; i < mWorkers.length(); i++) {
+            Worker worker = mWorkers.get(i);
+            if (worker != null && worker.mParked) return worker;
+        }
+        return null;
+    }
+
+    /**
+     * Wake the worker, or if it is busy, any idle one to steal the runnable.
+     */
+    void wakeUp(@NonNull Worker worker) {
+        if (worker.mParked) {
+            LockSupport.unpark(worker);
+            return;
+        }
+        Worker other = getParkedWorker();
+        if (other != null) {
+            LockSupport.unpark(other);
+        }
+    }
+
+    boolean hasWork() {
+        for (int i = 0; i < mWorkers.length(); i++) {
+            Worker worker = mWorkers.get(i);
+            if (worker != null && !worker.isEmpty()) return true;
+        }
+        return false;
+    }
+
+    static class Worker extends Thread {
+        @NonNull
+        final WorkStealingExecutor mExecutor;
+        final int mIndex;
+
+        /**
+         * Runnables forked by the worker. Guarded by own monitor. Owner takes from the tail, thieves from the head.
+         */
+        final ArrayDeque<Runnable> mDeque = new ArrayDeque<Runnable>();
+
+        /**
+         * Runnables submitted to the worker. Guarded by own monitor. Owner and thieves take from the head.
+         */
+        final ArrayDeque<Runnable> mSubmissions = new ArrayDeque<Runnable>();
+
+        /**
+         * Set when the worker is about to park, producers have to unpark it.
+         */
+        volatile boolean mParked;
+
+        /**
+         * Set when the worker retires, it does not accept submissions anymore. Guarded by mSubmissions monitor.
+         */
+        boolean mRetired;
+
+        Worker(@NonNull WorkStealingExecutor executor, int index, @NonNull String name) {
+            super(name);
+            mExecutor = executor;
+            mIndex = index;
+            setDaemon(true);
+            setPriority(Thread.MIN_PRIORITY);
+        }
+
+        /**
+         * Called by the worker thread only.
+         */
+        void fork(@NonNull Runnable runnable) {
+            synchronized (mDeque) {
+                mDeque.addLast(runnable);
+            }
+        }
+
+        /**
+         * @return false if the worker retired, submit the runnable to other worker.
+         */
+        boolean submit(@NonNull Runnable runnable) {
+            synchronized (mSubmissions) {
+                if (mRetired) return false;
+                mSubmissions.addLast(runnable);
+                return true;
+            }
+        }
+
+        @Nullable
+        Runnable pop() {
+            synchronized (mDeque) {
+                return mDeque.pollLast();
+            }
+        }
+
+        @Nullable
+        Runnable poll() {
+            synchronized (mSubmissions) {
+                return mSubmissions.pollFirst();
+            }
+        }
+
+        @Nullable
+        Runnable steal() {
+            synchronized (mDeque) {
+                return mDeque.pollFirst();
+            }
+        }
+
+        boolean isEmpty() {
+            synchronized (mDeque) {
+                if (!mDeque.isEmpty()) return false;
+            }
+            synchronized (mSubmissions) {
+                return mSubmissions.isEmpty();
+            }
+        }
+
+        @Nullable
+        Runnable stealFromOthers() {
+            AtomicReferenceArray<Worker> workers = mExecutor.mWorkers;
+            int count = workers.length();
+            for (int i = 1; i < count; i++) {
+                Worker other = workers.get((mIndex + i) % count);
+                Runnable result = other != null ? other.steal() : null;
+                if (result != null) return result;
+            }
+            for (int i = 1; i < count; i++) {
+                Worker other = workers.get((mIndex + i) % count);
+                Runnable result = other != null ? other.poll() : null;
+                if (result != null) return result;
+            }
+            return null;
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                Runnable runnable = pop();
+                if (runnable == null) {
+                    runnable = poll();
+                }
+                if (runnable == null) {
+                    runnable = stealFromOthers();
+                }
+                if (runnable != null) {
+                    try {
+                        runnable.run();
+                    } catch (Throwable e) {
+                        //worker must survive, just print it, like the bus does for subscribers.
+                        e.printStackTrace();
+                    }
+                    continue;
+                }
+
+                mParked = true;
+                //re-check after the flag is visible, a producer could push meanwhile
+                if (!mExecutor.hasWork()) {
+                    if (mIndex < mExecutor.mCoreThreads) {
+                        LockSupport.park(this);
+                    } else {
+                        long start = System.nanoTime();
+                        LockSupport.parkNanos(this, mExecutor.mKeepAliveNanos);
+                        if (System.nanoTime() - start >= mExecutor.mKeepAliveNanos && mExecutor.retire(this)) {
+                            mParked = false;
+                            return;
+                        }
+                    }
+                }
+                mParked = false;
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.pgssoft.async_event_bus;
+
+import junit.framework.TestCase;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+public class DispatcherPoolTest extends TestCase {
+
+    public void testLanesAssignedRoundRobin() {
+        DispatcherPool pool = new DispatcherPool("test", 3);
+        assertEquals(3, pool.getLaneCount());
+
+        Executor first = pool.nextLane();
+        Executor second = pool.nextLane();
+        Executor third = pool.nextLane();
+        assertNotSame(first, second);
+        assertNotSame(second, third);
+        assertNotSame(first, third);
+        assertSame(first, pool.nextLane());
+
+        try {
+            new DispatcherPool("test", 0);
+            fail();
+        } catch (IllegalArgumentException e) {
+            //expected
+        }
+    }
+
+    static class Target {
+        final StringBuffer mReceived = new StringBuffer();
+        final CountDownLatch mDone = new CountDownLatch(1);
+        volatile String mThread;
+
+        @Subscribe(EventBus.DeliveryThread.DISPATCHER)
+        void onEvent(Integer event) {
+            mThread = Thread.currentThread().getName();
+            mReceived.append(event);
+            if (event == 9) mDone.countDown();
+        }
+    }
+
+    /**
+     * Buses pinned to the same lane share the thread, and both keep order of own events.
+     */
+    public void testBusesShareLane() throws Exception {
+        DispatcherPool pool = new DispatcherPool("test.pool", 1);
+        EventBus bus1 = new EventBus("bus1", null, new ThreadScheduler("bus1", pool.nextLane(), null, null));
+        EventBus bus2 = new EventBus("bus2", null, new ThreadScheduler("bus2", pool.nextLane(), null, null));
+        Target target1 = new Target();
+        Target target2 = new Target();
+        bus1.register(target1);
+        bus2.register(target2);
+
+        for (int i = 0; i < 10; i++) {
+            bus1.post(i);
+            bus2.post(i);
+        }
+
+        assertTrue(target1.mDone.await(5, TimeUnit.SECONDS));
+        assertTrue(target2.mDone.await(5, TimeUnit.SECONDS));
+        assertEquals("0123456789", target1.mReceived.toString());
+        assertEquals("0123456789", target2.mReceived.toString());
+        assertEquals("test.pool #1", target1.mThread);
+        assertEquals("test.pool #1", target2.mThread);
+    }
+
+    public void testThreadFactory() throws Exception {
+        DispatcherPool pool = new DispatcherPool(2, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                return new Thread(r, "test.factory");
+            }
+        });
+        assertEquals(2, pool.getLaneCount());
+        assertNotSame(pool.getLane(0), pool.getLane(1));
+
+        EventBus bus = new EventBus("bus", null, new ThreadScheduler("bus", pool.nextLane(), null, null));
+        Target target = new Target();
+        bus.register(target);
+        for (int i = 0; i < 10; i++) {
+            bus.post(i);
+        }
+
+        assertTrue(target.mDone.await(5, TimeUnit.SECONDS));
+        assertEquals("0123456789", target.mReceived.toString());
+        assertEquals("test.factory", target.mThread);
+    }
+}
@@ -0,0 +1,97 @@
+package com.pgssoft.async_event_bus;
+
+import junit.framework.TestCase;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class EagerThreadPoolExecutorTest extends TestCase {
+
+    /**
+     * Threads are started before tasks are queued, and tasks are queued when pool reached maximum size.
+     */
+    public void testGrowsBeforeQueueing() throws Exception {
+        EagerThreadPoolExecutor executor = new EagerThreadPoolExecutor(1, 4, 60, TimeUnit.SECONDS);
+        final CountDownLatch started = new CountDownLatch(4);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger finished = new AtomicInteger();
+        Runnable blocking = new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+                finished.incrementAndGet();
+            }
+        };
+
+        for (int i = 0; i < 4; i++) {
+            executor.execute(blocking);
+        }
+        //all 4 run at once, none of them waits in queue
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertEquals(4, executor.getPoolSize());
+        assertEquals(0, executor.getQueue().size());
+
+        //pool is full now, next tasks wait in queue
+        executor.execute(blocking);
+        executor.execute(blocking);
+        assertEquals(4, executor.getPoolSize());
+        assertEquals(2, executor.getQueue().size());
+
+        release.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(6, finished.get());
+    }
+
+    /**
+     * Idle thread takes the task from queue, no new thread is started.
+     */
+    public void testReusesIdleThreads() throws Exception {
+        EagerThreadPoolExecutor executor = new EagerThreadPoolExecutor(1, 4, 60, TimeUnit.SECONDS);
+        for (int i = 0; i < 20; i++) {
+            final CountDownLatch done = new CountDownLatch(1);
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    done.countDown();
+                }
+            });
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            //let the thread finish afterExecute()
+            Thread.sleep(5);
+        }
+        assertEquals(1, executor.getPoolSize());
+        executor.shutdown();
+    }
+
+    public void testManyProducers() throws Exception {
+        final EagerThreadPoolExecutor executor = new EagerThreadPoolExecutor(2, 8, 60, TimeUnit.SECONDS);
+        final int tasks = 10000;
+        final CountDownLatch done = new CountDownLatch(4 * tasks);
+        final Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                done.countDown();
+            }
+        };
+        for (int p = 0; p < 4; p++) {
+            new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < tasks; i++) {
+                        executor.execute(task);
+                    }
+                }
+            }.start();
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertTrue(executor.getPoolSize() <= 8);
+        executor.shutdown();
+    }
+}
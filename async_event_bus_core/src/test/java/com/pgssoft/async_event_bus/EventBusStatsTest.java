@@ -0,0 +1,142 @@
+package com.pgssoft.async_event_bus;
+
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class EventBusStatsTest extends TestCase {
+
+    static final int EVENTS = 100;
+
+    static class Target {
+        final CountDownLatch mLatch = new CountDownLatch(2 * EVENTS);
+
+        @Subscribe(EventBus.DeliveryThread.DISPATCHER)
+        void onDispatcher(String event) {
+            mLatch.countDown();
+        }
+
+        @Subscribe(EventBus.DeliveryThread.BACKGROUND)
+        void onBackground(String event) {
+            mLatch.countDown();
+        }
+    }
+
+    static class KeyedTarget {
+        final CountDownLatch mLatch;
+
+        KeyedTarget(int count) {
+            mLatch = new CountDownLatch(count);
+        }
+
+        @Subscribe(EventBus.DeliveryThread.DISPATCHER)
+        void onEvent(String event) {
+            mLatch.countDown();
+        }
+    }
+
+    public void testBatchSplitByLanes() throws Exception {
+        PartitionedExecutor dispatcher = new PartitionedExecutor(new DispatcherPool("test.partition", 4),
+                new PartitionedExecutor.KeyExtractor() {
+                    @Override
+                    public Object getPartitionKey(Object event) {
+                        return event;
+                    }
+                });
+        EventBus eventBus = new EventBus("test", null, new ThreadScheduler("test", dispatcher, null, null));
+        eventBus.setStatsEnabled(true);
+        KeyedTarget target = new KeyedTarget(4 * EVENTS);
+        eventBus.register(target);
+
+        for (int i = 0; i < EVENTS; i++) {
+            eventBus.postAll(Arrays.asList("a", "b", "c", "d"));
+        }
+        assertTrue(target.mLatch.await(5, TimeUnit.SECONDS));
+
+        //every split batch left the queue
+        EventBusStats stats = eventBus.getStats();
+        assertEquals(0, stats.getDispatcherQueueDepth());
+        assertEquals(4 * EVENTS, stats.getDispatchedCount(String.class));
+    }
+
+    public void testDisabledByDefault() {
+        EventBus eventBus = new EventBus("test", null, new ThreadScheduler("test"));
+        assertNull(eventBus.getStats());
+
+        eventBus.setStatsEnabled(true);
+        EventBusStats stats = eventBus.getStats();
+        assertNotNull(stats);
+        eventBus.setStatsEnabled(true);
+        assertSame(stats, eventBus.getStats());
+
+        eventBus.setStatsEnabled(false);
+        assertNull(eventBus.getStats());
+    }
+
+    public void testCounters() throws Exception {
+        EventBus eventBus = new EventBus("test", null, new ThreadScheduler("test"));
+        eventBus.setStatsEnabled(true);
+        Target target = new Target();
+        eventBus.register(target);
+
+        for (int i = 0; i < EVENTS; i++) {
+            eventBus.post("event");
+        }
+        eventBus.send(1);
+        assertTrue(target.mLatch.await(5, TimeUnit.SECONDS));
+        //wait for the background deliveries to finish their bookkeeping
+        Thread.sleep(100);
+
+        EventBusStats stats = eventBus.getStats();
+        assertEquals(EVENTS, stats.getPostedCount(String.class));
+        assertEquals(EVENTS, stats.getDispatchedCount(String.class));
+        assertEquals(1, stats.getPostedCount(Integer.class));
+        assertEquals(1, stats.getDeadEventCount());
+        assertEquals(1, stats.getDispatchedCount(DeadEvent.class));
+        assertEquals(0, stats.getDispatcherQueueDepth());
+        assertEquals(0, stats.getPendingDeliveryCount());
+
+        assertEquals(EVENTS + 1, stats.getPostToDispatchLatency().getCount());
+        assertEquals(EVENTS, stats.getDispatchToDeliveryLatency().getCount());
+
+        Map<String, LatencyHistogram> executionTimes = stats.getSubscriberExecutionTimes();
+        assertEquals(EVENTS, executionTimes.get(Target.class.getName() + "#onDispatcher(String)").getCount());
+        assertEquals(EVENTS, executionTimes.get(Target.class.getName() + "#onBackground(String)").getCount());
+    }
+
+    public void testHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i * 1000);
+        }
+        assertEquals(100, histogram.getCount());
+        assertEquals(50500, histogram.getMeanNanos());
+        assertEquals(100000, histogram.getMaxNanos());
+        long p50 = histogram.getPercentileNanos(0.5);
+        assertTrue(p50 >= 50000 && p50 < 2 * 50000);
+        assertEquals(100000, histogram.getPercentileNanos(1));
+    }
+
+    public void testStripedCounter() throws Exception {
+        final StripedCounter counter = new StripedCounter();
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 100000; j++) {
+                        counter.increment();
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(400000, counter.sum());
+    }
+}
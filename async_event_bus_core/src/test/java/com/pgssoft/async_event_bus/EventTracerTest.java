@@ -0,0 +1,122 @@
+package com.pgssoft.async_event_bus;
+
+import junit.framework.TestCase;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class EventTracerTest extends TestCase {
+
+    static class RecordingTracer implements EventTracer {
+        final List<String> mCalls = new ArrayList<String>();
+
+        synchronized void add(String call) {
+            mCalls.add(call);
+        }
+
+        synchronized List<String> getCalls() {
+            return new ArrayList<String>(mCalls);
+        }
+
+        @Override
+        public void onPosted(long correlationId, Object event) {
+            add("posted " + event + " " + correlationId);
+        }
+
+        @Override
+        public void onDispatched(long correlationId, Object event) {
+            add("dispatched " + event + " " + correlationId);
+        }
+
+        @Override
+        public void onDeliveryQueued(long correlationId, Object event, Object target, Method method) {
+            add("queued " + event + " " + correlationId);
+        }
+
+        @Override
+        public void onDeliveryStarted(long correlationId, Object event, Object target, Method method) {
+            add("started " + event + " " + correlationId);
+        }
+
+        @Override
+        public void onDeliveryCompleted(long correlationId, Object event, Object target, Method method, Throwable error) {
+            add("completed " + event + " " + correlationId + (error != null ? " " + error.getMessage() : ""));
+        }
+    }
+
+    static class Target {
+        final EventBus mEventBus;
+        final CountDownLatch mLatch = new CountDownLatch(1);
+
+        Target(EventBus eventBus) {
+            mEventBus = eventBus;
+        }
+
+        @Subscribe(EventBus.DeliveryThread.DISPATCHER)
+        void onString(String event) {
+            mEventBus.post(event.length());
+        }
+
+        @Subscribe(EventBus.DeliveryThread.BACKGROUND)
+        void onInteger(Integer event) {
+            mLatch.countDown();
+            throw new IllegalStateException("boom");
+        }
+    }
+
+    public void testLifecycleAndCausality() throws Exception {
+        EventBus eventBus = new EventBus("test", null, new ThreadScheduler("test"));
+        RecordingTracer tracer = new RecordingTracer();
+        eventBus.setTracer(tracer);
+        Target target = new Target(eventBus);
+        eventBus.register(target);
+
+        eventBus.send("abc");
+        assertTrue(target.mLatch.await(5, TimeUnit.SECONDS));
+        //wait for the background delivery to complete
+        Thread.sleep(100);
+
+        List<String> calls = tracer.getCalls();
+        assertTrue(calls.get(0).startsWith("posted abc "));
+        long id = Long.parseLong(calls.get(0).substring("posted abc ".length()));
+        assertTrue(id != 0);
+
+        //the child post inherits the correlation ID, it is dispatched concurrently, so check order per event only
+        assertOrder(calls, "posted abc " + id, "dispatched abc " + id, "started abc " + id, "posted 3 " + id,
+                "completed abc " + id);
+        assertOrder(calls, "posted 3 " + id, "dispatched 3 " + id, "queued 3 " + id, "started 3 " + id,
+                "completed 3 " + id + " boom");
+        assertEquals(9, calls.size());
+
+        //next post outside of any delivery gets a new ID
+        eventBus.send("x");
+        Thread.sleep(100);
+        String posted = tracer.getCalls().get(9);
+        assertTrue(posted.startsWith("posted x "));
+        assertFalse(posted.equals("posted x " + id));
+    }
+
+    static void assertOrder(List<String> calls, String... expected) {
+        int last = -1;
+        for (String call : expected) {
+            int index = calls.indexOf(call);
+            assertTrue(call + " in " + calls, index > last);
+            last = index;
+        }
+    }
+
+    public void testNotTracedWithoutTracer() throws Exception {
+        EventBus eventBus = new EventBus("test", null, new ThreadScheduler("test"));
+        Dispatcher dispatcher = Dispatcher.obtain(eventBus, "event", null);
+        assertEquals(0, dispatcher.mTraceId);
+        dispatcher.recycle();
+
+        eventBus.setTracer(new RecordingTracer());
+        dispatcher = Dispatcher.obtain(eventBus, "event", null);
+        assertTrue(dispatcher.mTraceId != 0);
+        dispatcher.recycle();
+    }
+}
@@ -0,0 +1,228 @@
+package com.pgssoft.async_event_bus;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class MailboxTest extends TestCase {
+
+    static final int EVENTS = 1000;
+
+    /**
+     * Not thread-safe on purpose, the mailbox must serialize all its subscribers.
+     */
+    static class SerialTarget {
+        final List<Object> mReceived = new ArrayList<Object>();
+        final AtomicInteger mInFlight = new AtomicInteger();
+        final CountDownLatch mDone = new CountDownLatch(2 * EVENTS);
+        volatile boolean mOverlapped;
+
+        @Subscribe(EventBus.DeliveryThread.BACKGROUND_SERIAL)
+        void onInteger(Integer event) {
+            receive(event);
+        }
+
+        @Subscribe(EventBus.DeliveryThread.BACKGROUND_SERIAL)
+        void onString(String event) {
+            receive(event);
+        }
+
+        void receive(Object event) {
+            if (mInFlight.incrementAndGet() > 1) {
+                mOverlapped = true;
+            }
+            mReceived.add(event);
+            mInFlight.decrementAndGet();
+            mDone.countDown();
+        }
+    }
+
+    public void testSerialDelivery() throws Exception {
+        EventBus eventBus = new EventBus("test", null, new ThreadScheduler("test"));
+        SerialTarget target1 = new SerialTarget();
+        SerialTarget target2 = new SerialTarget();
+        eventBus.register(target1);
+        eventBus.register(target2);
+
+        for (int i = 0; i < EVENTS; i++) {
+            eventBus.post(i);
+            eventBus.post(String.valueOf(i));
+        }
+
+        for (SerialTarget target : new SerialTarget[]{target1, target2}) {
+            assertTrue(target.mDone.await(10, TimeUnit.SECONDS));
+            assertFalse(target.mOverlapped);
+            synchronized (target.mReceived) {
+                for (int i = 0; i < EVENTS; i++) {
+                    assertEquals(i, target.mReceived.get(2 * i));
+                    assertEquals(String.valueOf(i), target.mReceived.get(2 * i + 1));
+                }
+            }
+        }
+    }
+
+    public void testMailboxSharedByTargetSubscribers() {
+        EventBus eventBus = new EventBus("test", null, new ThreadScheduler("test"));
+        SerialTarget target = new SerialTarget();
+        eventBus.register(target);
+
+        Subscriber onInteger = eventBus.getSubscribersForEventType(Integer.class)[0];
+        Subscriber onString = eventBus.getSubscribersForEventType(String.class)[0];
+        assertNotNull(onInteger.mMailbox);
+        assertSame(onInteger.mMailbox, onString.mMailbox);
+    }
+
+    public void testDrainedMailboxReleasesThread() throws Exception {
+        final List<Runnable> submitted = new ArrayList<Runnable>();
+        Mailbox mailbox = new Mailbox(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                submitted.add(command);
+            }
+        });
+        final StringBuilder order = new StringBuilder();
+        for (int i = 0; i < Mailbox.THROUGHPUT + 2; i++) {
+            final int value = i % 10;
+            mailbox.execute(new Runnable() {
+                @Override
+                public void run() {
+                    order.append(value);
+                }
+            });
+        }
+        //scheduled once, no matter how many runnables
+        assertEquals(1, submitted.size());
+
+        submitted.remove(0).run();
+        //throughput reached, mailbox re-submitted itself
+        assertEquals(Mailbox.THROUGHPUT, order.length());
+        assertEquals(1, submitted.size());
+
+        submitted.remove(0).run();
+        assertEquals(Mailbox.THROUGHPUT + 2, order.length());
+        //drained, nothing is submitted
+        assertEquals(0, submitted.size());
+        assertFalse(mailbox.mScheduled.get());
+    }
+
+    static class ManualExecutor implements Executor {
+        final List<Runnable> mSubmitted = new ArrayList<Runnable>();
+
+        @Override
+        public void execute(Runnable command) {
+            mSubmitted.add(command);
+        }
+
+        void runAll() {
+            while (!mSubmitted.isEmpty()) {
+                mSubmitted.remove(0).run();
+            }
+        }
+    }
+
+    static Runnable append(final List<String> log, final String value) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                log.add(value);
+            }
+        };
+    }
+
+    public void testPriorityOrder() {
+        ManualExecutor executor = new ManualExecutor();
+        Mailbox mailbox = new Mailbox(executor);
+        List<String> log = new ArrayList<String>();
+        mailbox.execute(append(log, "low1"), EventBus.PRIORITY_LOW);
+        mailbox.execute(append(log, "normal1"), EventBus.PRIORITY_NORMAL);
+        mailbox.execute(append(log, "high1"), EventBus.PRIORITY_HIGH);
+        mailbox.execute(append(log, "normal2"), EventBus.PRIORITY_NORMAL);
+        mailbox.execute(append(log, "high2"), EventBus.PRIORITY_HIGH);
+        mailbox.execute(append(log, "low2"), EventBus.PRIORITY_LOW);
+        executor.runAll();
+
+        assertEquals(Arrays.asList("high1", "high2", "normal1", "normal2", "low1", "low2"), log);
+    }
+
+    public void testLowPriorityIsNotStarved() {
+        ManualExecutor executor = new ManualExecutor();
+        Mailbox mailbox = new Mailbox(executor);
+        List<String> log = new ArrayList<String>();
+        mailbox.execute(append(log, "low"), EventBus.PRIORITY_LOW);
+        mailbox.execute(append(log, "normal"), EventBus.PRIORITY_NORMAL);
+        for (int i = 0; i < 10 * Mailbox.STARVATION_LIMIT; i++) {
+            mailbox.execute(append(log, "high"), EventBus.PRIORITY_HIGH);
+        }
+        executor.runAll();
+
+        //every waiting level is executed after STARVATION_LIMIT runnables of higher levels at most
+        assertTrue(log.indexOf("low") > 0);
+        assertTrue(log.indexOf("low") <= Mailbox.STARVATION_LIMIT);
+        assertTrue(log.indexOf("normal") > 0);
+        assertTrue(log.indexOf("normal") <= Mailbox.STARVATION_LIMIT + 1);
+    }
+
+    public void testHighPriorityOvertakesLongBacklog() {
+        ManualExecutor executor = new ManualExecutor();
+        Mailbox mailbox = new Mailbox(executor);
+        List<String> log = new ArrayList<String>();
+        for (int i = 0; i < 1000; i++) {
+            mailbox.execute(append(log, "low"), EventBus.PRIORITY_LOW);
+        }
+        mailbox.execute(append(log, "high"), EventBus.PRIORITY_HIGH);
+        executor.runAll();
+
+        assertEquals(1001, log.size());
+        assertEquals(0, log.indexOf("high"));
+    }
+
+    static class PriorityTarget {
+        final List<String> mReceived = new ArrayList<String>();
+
+        @Subscribe(EventBus.DeliveryThread.DISPATCHER)
+        void onEvent(String event) {
+            mReceived.add(event);
+        }
+    }
+
+    public void testPostWithPriority() {
+        ManualExecutor dispatcherExecutor = new ManualExecutor();
+        EventBus eventBus = new EventBus("test", null, new ThreadScheduler("test", dispatcherExecutor, null, null));
+        PriorityTarget target = new PriorityTarget();
+        eventBus.register(target);
+
+        eventBus.post("analytics", EventBus.PRIORITY_LOW);
+        eventBus.post("normal");
+        eventBus.postToTarget("click", target, EventBus.PRIORITY_HIGH);
+        dispatcherExecutor.runAll();
+
+        assertEquals(Arrays.asList("click", "normal", "analytics"), target.mReceived);
+    }
+
+    public void testDispatcherMailboxIsUsedWithPrioritiesOnly() {
+        ManualExecutor dispatcherExecutor = new ManualExecutor();
+        EventBus eventBus = new EventBus("test", null, new ThreadScheduler("test", dispatcherExecutor, null, null));
+        PriorityTarget target = new PriorityTarget();
+        eventBus.register(target);
+
+        //normal posts go straight to the executor
+        eventBus.post("normal1");
+        assertFalse(eventBus.mPrioritized);
+        assertTrue(dispatcherExecutor.mSubmitted.get(0) instanceof Dispatcher);
+
+        //from the first priority post on, all go through the mailbox, after posts waiting already
+        eventBus.post("high", EventBus.PRIORITY_HIGH);
+        eventBus.post("normal2");
+        assertTrue(eventBus.mPrioritized);
+        assertEquals(2, eventBus.mDispatcherMailbox.size());
+        dispatcherExecutor.runAll();
+
+        assertEquals(Arrays.asList("normal1", "high", "normal2"), target.mReceived);
+    }
+}
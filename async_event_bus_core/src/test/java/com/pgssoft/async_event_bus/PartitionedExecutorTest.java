@@ -0,0 +1,122 @@
+package com.pgssoft.async_event_bus;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class PartitionedExecutorTest extends TestCase {
+
+    static final int KEYS = 8;
+    static final int EVENTS_PER_KEY = 100;
+
+    static class KeyedEvent implements PartitionedEvent {
+        final Integer mKey;
+        final int mSequence;
+
+        KeyedEvent(int key, int sequence) {
+            mKey = key;
+            mSequence = sequence;
+        }
+
+        @Override
+        public Object getPartitionKey() {
+            return mKey;
+        }
+    }
+
+    static class Target {
+        final Map<Integer, List<Integer>> mReceived = new HashMap<Integer, List<Integer>>();
+        final Set<String> mThreads = new HashSet<String>();
+        final CountDownLatch mDone;
+
+        Target(int count) {
+            mDone = new CountDownLatch(count);
+        }
+
+        @Subscribe(EventBus.DeliveryThread.DISPATCHER)
+        void onEvent(KeyedEvent event) {
+            synchronized (this) {
+                List<Integer> sequences = mReceived.get(event.mKey);
+                if (sequences == null) {
+                    sequences = new ArrayList<Integer>();
+                    mReceived.put(event.mKey, sequences);
+                }
+                sequences.add(event.mSequence);
+                mThreads.add(Thread.currentThread().getName());
+            }
+            mDone.countDown();
+        }
+
+        synchronized void assertOrdered() {
+            assertEquals(KEYS, mReceived.size());
+            for (List<Integer> sequences : mReceived.values()) {
+                assertEquals(EVENTS_PER_KEY, sequences.size());
+                for (int i = 0; i < sequences.size(); i++) {
+                    assertEquals(i, sequences.get(i).intValue());
+                }
+            }
+        }
+    }
+
+    EventBus createBus(PartitionedExecutor.KeyExtractor keyExtractor) {
+        PartitionedExecutor dispatcher = new PartitionedExecutor(new DispatcherPool("test.partition", 4), keyExtractor);
+        return new EventBus("test", null, new ThreadScheduler("test", dispatcher, null, null));
+    }
+
+    public void testOrderPerKey() throws Exception {
+        EventBus eventBus = createBus(null);
+        Target target = new Target(KEYS * EVENTS_PER_KEY);
+        eventBus.register(target);
+
+        for (int i = 0; i < EVENTS_PER_KEY; i++) {
+            for (int key = 0; key < KEYS; key++) {
+                eventBus.post(new KeyedEvent(key, i));
+            }
+        }
+
+        assertTrue(target.mDone.await(5, TimeUnit.SECONDS));
+        target.assertOrdered();
+        assertTrue(target.mThreads.size() > 1);
+    }
+
+    public void testBatchSplitByLanes() throws Exception {
+        EventBus eventBus = createBus(null);
+        Target target = new Target(KEYS * EVENTS_PER_KEY);
+        eventBus.register(target);
+
+        for (int i = 0; i < EVENTS_PER_KEY; i += 2) {
+            List<Object> batch = new ArrayList<Object>();
+            for (int key = 0; key < KEYS; key++) {
+                batch.add(new KeyedEvent(key, i));
+                batch.add(new KeyedEvent(key, i + 1));
+            }
+            eventBus.postAll(batch);
+        }
+
+        assertTrue(target.mDone.await(5, TimeUnit.SECONDS));
+        target.assertOrdered();
+    }
+
+    public void testKeyExtractor() {
+        PartitionedExecutor executor = new PartitionedExecutor(new DispatcherPool("test.partition", 4),
+                new PartitionedExecutor.KeyExtractor() {
+                    @Override
+                    public Object getPartitionKey(Object event) {
+                        return event instanceof String ? ((String) event).substring(0, 1) : null;
+                    }
+                });
+
+        assertEquals(executor.getLaneIndex("a1"), executor.getLaneIndex("a2"));
+        assertEquals(0, executor.getLaneIndex(1));
+        //no key from extractor, the event key is used
+        assertEquals(new PartitionedExecutor(new DispatcherPool("test.partition", 4), null).getLaneIndex(new KeyedEvent(3, 0)),
+                executor.getLaneIndex(new KeyedEvent(3, 0)));
+    }
+}
@@ -0,0 +1,81 @@
+package com.pgssoft.async_event_bus;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class RateLimiterTest extends TestCase {
+
+    static class Target {
+        final List<String> mDebounced = Collections.synchronizedList(new ArrayList<String>());
+        final List<Integer> mThrottled = Collections.synchronizedList(new ArrayList<Integer>());
+
+        @Subscribe(value = EventBus.DeliveryThread.BACKGROUND, debounce = 100)
+        void onQuery(String query) {
+            mDebounced.add(query);
+        }
+
+        @Subscribe(value = EventBus.DeliveryThread.DISPATCHER, throttle = 100)
+        void onScroll(Integer position) {
+            mThrottled.add(position);
+        }
+    }
+
+    public void testDebounce() throws Exception {
+        EventBus eventBus = new EventBus("test", null, new ThreadScheduler("test"));
+        Target target = new Target();
+        eventBus.register(target);
+
+        for (String query : new String[]{"a", "as", "asy", "asyn", "async"}) {
+            eventBus.post(query);
+            Thread.sleep(20);
+        }
+        //still typing, nothing delivered
+        assertTrue(target.mDebounced.isEmpty());
+
+        Thread.sleep(300);
+        assertEquals(Collections.singletonList("async"), target.mDebounced);
+    }
+
+    public void testUnregisterDropsDeferredEvent() throws Exception {
+        EventBus eventBus = new EventBus("test", null, new ThreadScheduler("test"));
+        Target target = new Target();
+        eventBus.register(target);
+
+        eventBus.send("async");
+        //unregistered within the debounce window, ex. in onPause()
+        eventBus.unregister(target);
+
+        Thread.sleep(300);
+        assertTrue(target.mDebounced.isEmpty());
+    }
+
+    public void testThrottle() throws Exception {
+        EventBus eventBus = new EventBus("test", null, new ThreadScheduler("test"));
+        Target target = new Target();
+        eventBus.register(target);
+
+        for (int i = 0; i < 10; i++) {
+            eventBus.send(i);
+        }
+        //the first one immediately
+        assertEquals(Collections.singletonList(0), target.mThrottled);
+
+        Thread.sleep(300);
+        //the latest one when the period ends
+        assertEquals(2, target.mThrottled.size());
+        assertEquals(Integer.valueOf(9), target.mThrottled.get(1));
+    }
+
+    public void testDebounceAndThrottleAreExclusive() throws Exception {
+        try {
+            new SubscriberMethodInfo("onEvent", String.class, EventBus.DeliveryThread.DISPATCHER, false, 0,
+                    EventBus.OverflowPolicy.DROP_NEWEST, 100, 10, 10, new ReflectiveInvoker(Target.class.getDeclaredMethod("onQuery", String.class)));
+            fail();
+        } catch (IllegalArgumentException e) {
+            //expected
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.pgssoft.async_event_bus;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class RingBufferExecutorTest extends TestCase {
+
+    static final int PRODUCERS = 4;
+    static final int RUNNABLES_PER_PRODUCER = 10000;
+
+    public void testCapacityRoundedToPowerOf2() {
+        RingBufferExecutor executor = new RingBufferExecutor("test", 5, RingBufferExecutor.WaitStrategy.PARK);
+        assertEquals(7, executor.mMask);
+        executor.quit();
+        executor = new RingBufferExecutor("test", 8, RingBufferExecutor.WaitStrategy.PARK);
+        assertEquals(7, executor.mMask);
+        executor.quit();
+        try {
+            new RingBufferExecutor("test", 0, RingBufferExecutor.WaitStrategy.PARK);
+            fail();
+        } catch (IllegalArgumentException e) {
+            //expected
+        }
+    }
+
+    public void testManyProducersPark() throws Exception {
+        checkManyProducers(RingBufferExecutor.WaitStrategy.PARK);
+    }
+
+    public void testManyProducersYield() throws Exception {
+        checkManyProducers(RingBufferExecutor.WaitStrategy.YIELD);
+    }
+
+    public void testManyProducersSpin() throws Exception {
+        checkManyProducers(RingBufferExecutor.WaitStrategy.SPIN);
+    }
+
+    /**
+     * Small ring, so producers have to wait for free slots. Order of every producer must be preserved.
+     */
+    void checkManyProducers(RingBufferExecutor.WaitStrategy waitStrategy) throws Exception {
+        final RingBufferExecutor executor = new RingBufferExecutor("test", 16, waitStrategy);
+        final CountDownLatch done = new CountDownLatch(PRODUCERS * RUNNABLES_PER_PRODUCER);
+        //accessed by the executor thread only
+        final int[] lastByProducer = new int[PRODUCERS];
+        final List<String> errors = Collections.synchronizedList(new ArrayList<String>());
+
+        for (int p = 0; p < PRODUCERS; p++) {
+            final int producer = p;
+            new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 1; i <= RUNNABLES_PER_PRODUCER; i++) {
+                        final int value = i;
+                        executor.execute(new Runnable() {
+                            @Override
+                            public void run() {
+                                if (lastByProducer[producer] != value - 1) {
+                                    errors.add("producer " + producer + " got " + value + " after " + lastByProducer[producer]);
+                                }
+                                lastByProducer[producer] = value;
+                                done.countDown();
+                            }
+                        });
+                    }
+                }
+            }.start();
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(Collections.emptyList(), errors);
+        executor.quit();
+    }
+
+    /**
+     * The executor thread posting to the full ring must not deadlock.
+     */
+    public void testFullRingFromExecutorThread() throws Exception {
+        final RingBufferExecutor executor = new RingBufferExecutor("test", 2, RingBufferExecutor.WaitStrategy.PARK);
+        final CountDownLatch done = new CountDownLatch(10);
+        final StringBuffer order = new StringBuffer();
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < 10; i++) {
+                    final int value = i;
+                    executor.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            order.append(value);
+                            done.countDown();
+                        }
+                    });
+                }
+            }
+        });
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals("0123456789", order.toString());
+        executor.quit();
+    }
+
+    public void testErrorDoesNotKillThread() throws Exception {
+        final CountDownLatch done = new CountDownLatch(1);
+        RingBufferExecutor executor = new RingBufferExecutor("test", 8, RingBufferExecutor.WaitStrategy.PARK);
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                throw new AssertionError("expected");
+            }
+        });
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                done.countDown();
+            }
+        });
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        executor.quit();
+    }
+
+    public void testFullRingRejectedAfterQuit() throws Exception {
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        RingBufferExecutor executor = new RingBufferExecutor("test", 2, RingBufferExecutor.WaitStrategy.PARK);
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                blocked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        Runnable empty = new Runnable() {
+            @Override
+            public void run() {
+            }
+        };
+        executor.execute(empty);
+        executor.execute(empty);
+        executor.quit();
+        try {
+            executor.execute(empty);
+            fail("executor quit with the full ring should reject");
+        } catch (RejectedExecutionException e) {
+            //expected
+        } finally {
+            release.countDown();
+        }
+    }
+
+    public void testEventBusWithRingBuffer() throws Exception {
+        final CountDownLatch done = new CountDownLatch(1);
+        Object target = new Object() {
+            @Subscribe(EventBus.DeliveryThread.DISPATCHER)
+            void onEvent(String event) {
+                done.countDown();
+            }
+        };
+        RingBufferExecutor dispatcher = new RingBufferExecutor("test.dispatcher", 1024, RingBufferExecutor.WaitStrategy.YIELD);
+        EventBus eventBus = new EventBus("test", null, new ThreadScheduler("test", dispatcher, null, null));
+        eventBus.register(target);
+        eventBus.post("event");
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        dispatcher.quit();
+    }
+}
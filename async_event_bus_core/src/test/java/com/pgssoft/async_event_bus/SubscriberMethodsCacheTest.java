@@ -0,0 +1,113 @@
+package com.pgssoft.async_event_bus;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class SubscriberMethodsCacheTest extends TestCase {
+
+    static class Base {
+        final List<String> mCalls = new ArrayList<String>();
+
+        @Subscribe(EventBus.DeliveryThread.DISPATCHER)
+        void onString(String event) {
+            mCalls.add("Base.onString");
+        }
+
+        @Subscribe(EventBus.DeliveryThread.DISPATCHER)
+        void onInteger(Integer event) {
+            mCalls.add("Base.onInteger");
+        }
+    }
+
+    static class Middle extends Base {
+        //no subscriber methods
+    }
+
+    static class Leaf extends Middle {
+        @Override
+        @Subscribe(EventBus.DeliveryThread.DISPATCHER)
+        void onString(String event) {
+            mCalls.add("Leaf.onString");
+        }
+
+        @Subscribe(EventBus.DeliveryThread.DISPATCHER)
+        void onAnotherString(String event) {
+            mCalls.add("Leaf.onAnotherString");
+        }
+    }
+
+    static class NotAnnotatedOverride extends Base {
+        @Override
+        void onInteger(Integer event) {
+            mCalls.add("NotAnnotatedOverride.onInteger");
+        }
+    }
+
+    static class PrivateBase {
+        final List<String> mCalls = new ArrayList<String>();
+
+        @Subscribe(EventBus.DeliveryThread.DISPATCHER)
+        private void onString(String event) {
+            mCalls.add("PrivateBase.onString");
+        }
+    }
+
+    static class PrivateLeaf extends PrivateBase {
+        @Subscribe(EventBus.DeliveryThread.DISPATCHER)
+        void onString(String event) {
+            mCalls.add("PrivateLeaf.onString");
+        }
+    }
+
+    public void testInheritedMethods() {
+        EventBus eventBus = new EventBus("test", null, new ThreadScheduler("test"));
+        Leaf leaf = new Leaf();
+        eventBus.register(leaf);
+
+        eventBus.send("a");
+        eventBus.send(1);
+        assertEquals(3, leaf.mCalls.size());
+        assertTrue(leaf.mCalls.contains("Leaf.onString"));
+        assertTrue(leaf.mCalls.contains("Leaf.onAnotherString"));
+        assertTrue(leaf.mCalls.contains("Base.onInteger"));
+    }
+
+    public void testOverrideIsCalledOnce() {
+        EventBus eventBus = new EventBus("test", null, new ThreadScheduler("test"));
+        NotAnnotatedOverride target = new NotAnnotatedOverride();
+        eventBus.register(target);
+
+        eventBus.send(1);
+        assertEquals(1, target.mCalls.size());
+        assertEquals("NotAnnotatedOverride.onInteger", target.mCalls.get(0));
+    }
+
+    public void testPrivateMethodIsNotHidden() {
+        EventBus eventBus = new EventBus("test", null, new ThreadScheduler("test"));
+        PrivateLeaf target = new PrivateLeaf();
+        eventBus.register(target);
+
+        //private method is not overridden, both methods are called
+        eventBus.send("a");
+        assertEquals(2, target.mCalls.size());
+        assertTrue(target.mCalls.contains("PrivateBase.onString"));
+        assertTrue(target.mCalls.contains("PrivateLeaf.onString"));
+    }
+
+    public void testSuperclassesAreCached() {
+        Map<Class<?>, EventBus.MethodDescLinkedListItem> leaf = EventBus.getSubscriberMethods(Leaf.class);
+        assertSame(leaf, EventBus.getSubscriberMethods(Leaf.class));
+
+        Map<Class<?>, EventBus.MethodDescLinkedListItem> base = EventBus.mSubscriberMethodsCache.get(Base.class);
+        assertNotNull(base);
+        //class without own methods shares the superclass entry
+        assertSame(base, EventBus.mSubscriberMethodsCache.get(Middle.class));
+        assertFalse(EventBus.mSubscriberMethodsCache.containsKey(Object.class));
+
+        //inherited items share the info, with the invoker, of the superclass method
+        assertSame(base.get(Integer.class).info, leaf.get(Integer.class).info);
+    }
+}
@@ -0,0 +1,72 @@
+package com.pgssoft.async_event_bus;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class SubscriberWatchdogTest extends TestCase {
+
+    static class ReportingBus extends EventBus {
+        final List<SlowSubscriberException> mReports = new ArrayList<SlowSubscriberException>();
+
+        ReportingBus() {
+            super("test", null, new ThreadScheduler("test"));
+        }
+
+        @Override
+        protected void onSlowSubscriber(SlowSubscriberException report) {
+            synchronized (mReports) {
+                mReports.add(report);
+            }
+        }
+
+        List<SlowSubscriberException> getReports() {
+            synchronized (mReports) {
+                return new ArrayList<SlowSubscriberException>(mReports);
+            }
+        }
+    }
+
+    static class Target {
+        @Subscribe(EventBus.DeliveryThread.DISPATCHER)
+        void onString(String event) throws InterruptedException {
+            Thread.sleep(Long.parseLong(event));
+        }
+    }
+
+    public void testReportsSlowSubscriberOnce() throws Exception {
+        ReportingBus eventBus = new ReportingBus();
+        eventBus.setSlowSubscriberBudget(50);
+        Target target = new Target();
+        eventBus.register(target);
+
+        eventBus.send("300");
+        List<SlowSubscriberException> reports = eventBus.getReports();
+        assertEquals(1, reports.size());
+        SlowSubscriberException report = reports.get(0);
+        assertSame(Target.class, report.getTargetClass());
+        assertEquals("onString", report.getMethod().getName());
+        assertSame(String.class, report.getEventClass());
+        assertTrue(report.getElapsedMillis() >= 50);
+        assertEquals(Thread.currentThread().getName(), report.getThreadName());
+        boolean sleeping = false;
+        for (StackTraceElement element : report.getStackTrace()) {
+            if (element.getMethodName().equals("onString")) {
+                sleeping = true;
+            }
+        }
+        assertTrue(sleeping);
+
+        //fast deliveries are not reported
+        for (int i = 0; i < 100; i++) {
+            eventBus.send("0");
+        }
+        Thread.sleep(100);
+        assertEquals(1, eventBus.getReports().size());
+
+        eventBus.setSlowSubscriberBudget(0);
+        eventBus.send("300");
+        assertEquals(1, eventBus.getReports().size());
+    }
+}
@@ -0,0 +1,184 @@
+package com.pgssoft.async_event_bus;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class SubscriptionTest extends TestCase {
+
+    static class RecordingHandler implements EventHandler<Object> {
+        final List<Object> mEvents = new ArrayList<Object>();
+
+        @Override
+        public synchronized void onEvent(Object event) {
+            mEvents.add(event);
+        }
+
+        synchronized List<Object> getEvents() {
+            return new ArrayList<Object>(mEvents);
+        }
+    }
+
+    /**
+     * Target with a subscriber method named like the handler method.
+     */
+    static class AnnotatedHandler extends RecordingHandler {
+        final List<String> mAnnotated = new ArrayList<String>();
+
+        @Subscribe(EventBus.DeliveryThread.DISPATCHER)
+        void onEvent(String event) {
+            mAnnotated.add(event);
+        }
+    }
+
+    public void testSubscribeAndClose() {
+        EventBus eventBus = new EventBus("test", null, new ThreadScheduler("test"));
+        RecordingHandler handler = new RecordingHandler();
+        Subscription subscription = eventBus.subscribe(CharSequence.class, EventBus.DeliveryThread.DISPATCHER, handler);
+        assertTrue(subscription.isActive());
+
+        eventBus.send("a");
+        eventBus.send(1);
+        //subtypes are delivered too
+        eventBus.send(new StringBuilder("b"));
+        assertEquals(2, handler.getEvents().size());
+        assertEquals("a", handler.getEvents().get(0));
+
+        subscription.close();
+        assertFalse(subscription.isActive());
+        eventBus.send("c");
+        assertEquals(2, handler.getEvents().size());
+        assertTrue(eventBus.mRegisteredTargets.isEmpty());
+        assertTrue(eventBus.mStrongHandlers.isEmpty());
+
+        //closing again does nothing
+        subscription.close();
+    }
+
+    public void testCloseRemovesOwnSubscriptionOnly() {
+        EventBus eventBus = new EventBus("test", null, new ThreadScheduler("test"));
+        RecordingHandler handler = new RecordingHandler();
+        Subscription strings = eventBus.subscribe(String.class, EventBus.DeliveryThread.DISPATCHER, handler);
+        eventBus.subscribe(Integer.class, EventBus.DeliveryThread.DISPATCHER, handler);
+
+        strings.close();
+        eventBus.send("a");
+        eventBus.send(1);
+        assertEquals(1, handler.getEvents().size());
+        assertEquals(1, handler.getEvents().get(0));
+    }
+
+    public void testBackgroundDelivery() throws Exception {
+        EventBus eventBus = new EventBus("test", null, new ThreadScheduler("test"));
+        final CountDownLatch latch = new CountDownLatch(1);
+        eventBus.subscribe(String.class, EventBus.DeliveryThread.BACKGROUND, new EventHandler<String>() {
+            @Override
+            public void onEvent(String event) {
+                latch.countDown();
+            }
+        });
+        eventBus.post("a");
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+    }
+
+    public void testSerialHandlerOfTwoTypesSharesMailbox() throws Exception {
+        EventBus eventBus = new EventBus("test", null, new ThreadScheduler("test"));
+        RecordingHandler handler = new RecordingHandler();
+        eventBus.subscribe(String.class, EventBus.DeliveryThread.BACKGROUND_SERIAL, handler);
+        eventBus.subscribe(Integer.class, EventBus.DeliveryThread.BACKGROUND_SERIAL, handler);
+
+        Subscriber strings = eventBus.getSubscribersForEventType(String.class)[0];
+        Subscriber integers = eventBus.getSubscribersForEventType(Integer.class)[0];
+        assertNotNull(strings.mMailbox);
+        assertSame(strings.mMailbox, integers.mMailbox);
+    }
+
+    public void testHandlerDoesNotCollideWithSubscriberMethod() {
+        EventBus eventBus = new EventBus("test", null, new ThreadScheduler("test"));
+        AnnotatedHandler target = new AnnotatedHandler();
+        eventBus.register(target);
+        Subscription subscription = eventBus.subscribe(String.class, EventBus.DeliveryThread.DISPATCHER, target);
+        assertEquals(2, eventBus.getSubscribersForEventType(String.class).length);
+
+        eventBus.send("a");
+        assertEquals(1, target.mAnnotated.size());
+        assertEquals(1, target.getEvents().size());
+
+        //closing the subscription keeps the registered subscriber
+        subscription.close();
+        eventBus.send("b");
+        assertEquals(2, target.mAnnotated.size());
+        assertEquals(1, target.getEvents().size());
+    }
+
+    public void testRetention() throws Exception {
+        EventBus eventBus = new EventBus("test", null, new ThreadScheduler("test"));
+        RecordingHandler strong = new RecordingHandler();
+        eventBus.subscribe(String.class, EventBus.DeliveryThread.DISPATCHER, strong, EventBus.HandlerRetention.STRONG);
+        eventBus.subscribe(String.class, EventBus.DeliveryThread.DISPATCHER, new RecordingHandler(),
+                EventBus.HandlerRetention.WEAK);
+        assertEquals(2, eventBus.mRegisteredTargets.size());
+
+        //the weak handler is gone with its Subscription, the strong one is kept by the bus
+        strong = null;
+        for (int i = 0; i < 50 && eventBus.mRegisteredTargets.size() > 1; i++) {
+            System.gc();
+            Thread.sleep(20);
+            eventBus.unregister(null);
+        }
+        assertEquals(1, eventBus.mRegisteredTargets.size());
+        assertEquals(1, eventBus.getSubscribersForEventType(String.class).length);
+    }
+
+    /**
+     * Target with a subscriber of String events.
+     */
+    static class StringTarget {
+        final List<String> mEvents = new ArrayList<String>();
+
+        @Subscribe(EventBus.DeliveryThread.DISPATCHER)
+        synchronized void onEvent(String event) {
+            mEvents.add(event);
+        }
+
+        synchronized List<String> getEvents() {
+            return new ArrayList<String>(mEvents);
+        }
+    }
+
+    /**
+     * Repeated register or subscribe adds nothing, so the sticky event is not replayed again.
+     */
+    public void testStickyEventReplayedOnce() throws Exception {
+        EventBus eventBus = new EventBus("test", null, new ThreadScheduler("test"));
+        RecordingHandler deadEvents = new RecordingHandler();
+        eventBus.subscribe(DeadEvent.class, EventBus.DeliveryThread.DISPATCHER, deadEvents);
+        eventBus.postSticky("sticky");
+        //wait until the sticky event is dispatched, nobody receives it yet
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        while (deadEvents.getEvents().isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        RecordingHandler handler = new RecordingHandler();
+        eventBus.subscribe(String.class, EventBus.DeliveryThread.DISPATCHER, handler);
+        eventBus.subscribe(String.class, EventBus.DeliveryThread.DISPATCHER, handler);
+        StringTarget target = new StringTarget();
+        eventBus.register(target);
+        eventBus.register(target);
+
+        //replays are dispatched in order with posted events, wait for the event posted after them
+        eventBus.post("end");
+        deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        while ((!handler.getEvents().contains("end") || !target.getEvents().contains("end"))
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(2, handler.getEvents().size());
+        assertEquals("sticky", handler.getEvents().get(0));
+        assertEquals(2, target.getEvents().size());
+        assertEquals("sticky", target.getEvents().get(0));
+    }
+}
@@ -0,0 +1,132 @@
+package com.pgssoft.async_event_bus;
+
+import junit.framework.TestCase;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the bus on plain JVM, without Android.
+ */
+public class ThreadSchedulerTest extends TestCase {
+
+    static class Target {
+        final CountDownLatch mLatch = new CountDownLatch(4);
+        volatile String mDispatcherThread;
+        volatile String mUiThread;
+        volatile String mAsRegisteredThread;
+        volatile String mBackgroundThread;
+
+        @Subscribe(EventBus.DeliveryThread.DISPATCHER)
+        void onDispatcher(String event) {
+            mDispatcherThread = Thread.currentThread().getName();
+            mLatch.countDown();
+        }
+
+        @Subscribe(EventBus.DeliveryThread.UI)
+        void onUi(String event) {
+            mUiThread = Thread.currentThread().getName();
+            mLatch.countDown();
+        }
+
+        @Subscribe
+        void onAsRegistered(String event) {
+            mAsRegisteredThread = Thread.currentThread().getName();
+            mLatch.countDown();
+        }
+
+        @Subscribe(EventBus.DeliveryThread.BACKGROUND)
+        void onBackground(String event) {
+            mBackgroundThread = Thread.currentThread().getName();
+            mLatch.countDown();
+        }
+    }
+
+    public void testDeliveryThreads() throws Exception {
+        final Executor uiExecutor = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                Thread thread = new Thread(command, "test.ui");
+                thread.start();
+            }
+        };
+        EventBus eventBus = new EventBus("test", null, new ThreadScheduler("test", uiExecutor, null));
+        Target target = new Target();
+        eventBus.register(target);
+
+        eventBus.post("event");
+        assertTrue(target.mLatch.await(5, TimeUnit.SECONDS));
+
+        assertTrue(target.mDispatcherThread.startsWith("EventBus.Dispatcher #"));
+        assertEquals("test.ui", target.mUiThread);
+        assertEquals("test.registered", target.mAsRegisteredThread);
+        assertTrue(target.mBackgroundThread.startsWith("EventBus.Background"));
+    }
+
+    static class BlockingTarget {
+        final CountDownLatch mStarted = new CountDownLatch(10);
+        final CountDownLatch mRelease = new CountDownLatch(1);
+        volatile Thread mThread;
+
+        @Subscribe(EventBus.DeliveryThread.VIRTUAL)
+        void onEvent(Integer event) throws InterruptedException {
+            mThread = Thread.currentThread();
+            mStarted.countDown();
+            mRelease.await();
+        }
+    }
+
+    public void testVirtualDelivery() throws Exception {
+        EventBus eventBus = new EventBus("test", null, new ThreadScheduler("test"));
+        BlockingTarget target = new BlockingTarget();
+        eventBus.register(target);
+
+        Method isVirtual = null;
+        try {
+            isVirtual = Thread.class.getMethod("isVirtual");
+        } catch (NoSuchMethodException e) {
+            //older JVM, bus falls back to the background executor
+        }
+
+        if (isVirtual != null) {
+            //more blocked deliveries than background threads
+            for (int i = 0; i < 10; i++) {
+                eventBus.post(i);
+            }
+            assertTrue(target.mStarted.await(5, TimeUnit.SECONDS));
+            assertEquals(Boolean.TRUE, isVirtual.invoke(target.mThread));
+        } else {
+            eventBus.post(0);
+            for (int i = 0; i < 50 && target.mThread == null; i++) {
+                Thread.sleep(100);
+            }
+            assertTrue(target.mThread.getName().startsWith("EventBus.Background"));
+        }
+        target.mRelease.countDown();
+    }
+
+    public void testOrderedDelivery() throws Exception {
+        final StringBuffer received = new StringBuffer();
+        final CountDownLatch latch = new CountDownLatch(1);
+        Object target = new Object() {
+            @Subscribe
+            void onEvent(Integer event) {
+                received.append(event);
+                if (event == 5) latch.countDown();
+            }
+        };
+        EventBus eventBus = new EventBus("test", null, new ThreadScheduler("test"));
+        eventBus.register(target);
+
+        eventBus.post(1);
+        eventBus.postDelayed(5, 50);
+        eventBus.postAll(Arrays.asList(2, 3));
+        eventBus.post(4);
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals("12345", received.toString());
+    }
+}
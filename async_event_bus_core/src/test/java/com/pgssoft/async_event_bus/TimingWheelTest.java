@@ -0,0 +1,109 @@
+package com.pgssoft.async_event_bus;
+
+import junit.framework.TestCase;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class TimingWheelTest extends TestCase {
+
+    public void testNotExpiredEarly() throws Exception {
+        TimingWheel wheel = new TimingWheel("test", 10, 16);
+        int count = 1000;
+        final CountDownLatch done = new CountDownLatch(count);
+        final AtomicInteger early = new AtomicInteger();
+        for (int i = 0; i < count; i++) {
+            //some delays need more than one round of the wheel
+            final long delay = i % 300;
+            final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay);
+            wheel.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    if (System.nanoTime() < deadline) {
+                        early.incrementAndGet();
+                    }
+                    done.countDown();
+                }
+            }, delay);
+        }
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(0, early.get());
+    }
+
+    public void testCancel() throws Exception {
+        TimingWheel wheel = new TimingWheel("test", 10, 16);
+        final AtomicInteger runs = new AtomicInteger();
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                runs.incrementAndGet();
+            }
+        };
+        PendingPost cancelled = wheel.schedule(task, 50);
+        PendingPost expired = wheel.schedule(task, 0);
+
+        assertTrue(cancelled.cancel());
+        assertFalse(cancelled.cancel());
+        assertFalse(cancelled.isPending());
+
+        Thread.sleep(150);
+        assertEquals(1, runs.get());
+        assertFalse(expired.isPending());
+        assertFalse(expired.cancel());
+        assertFalse(expired.reschedule(10));
+        assertEquals(0, wheel.mLinkedCount);
+    }
+
+    public void testReschedule() throws Exception {
+        TimingWheel wheel = new TimingWheel("test", 10, 16);
+        final AtomicLong expiredAt = new AtomicLong();
+        final CountDownLatch done = new CountDownLatch(1);
+        PendingPost post = wheel.schedule(new Runnable() {
+            @Override
+            public void run() {
+                expiredAt.set(System.nanoTime());
+                done.countDown();
+            }
+        }, 50);
+
+        //"timeout unless superseded", push it forward a few times
+        long start = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            Thread.sleep(20);
+            assertTrue(post.reschedule(100));
+        }
+        long lastReschedule = System.nanoTime();
+        assertTrue(post.isPending());
+        assertTrue(done.await(2, TimeUnit.SECONDS));
+        assertTrue(expiredAt.get() - lastReschedule >= TimeUnit.MILLISECONDS.toNanos(100));
+        assertTrue(expiredAt.get() - start >= TimeUnit.MILLISECONDS.toNanos(200));
+    }
+
+    static class Target {
+        final AtomicInteger mReceived = new AtomicInteger();
+        final CountDownLatch mLatch = new CountDownLatch(1);
+
+        @Subscribe(EventBus.DeliveryThread.DISPATCHER)
+        void onEvent(String event) {
+            mReceived.incrementAndGet();
+            mLatch.countDown();
+        }
+    }
+
+    public void testCancelDelayedPost() throws Exception {
+        EventBus eventBus = new EventBus("test", null, new ThreadScheduler("test"));
+        Target target = new Target();
+        eventBus.register(target);
+
+        PendingPost timeout = eventBus.postDelayed("timeout", 30);
+        PendingPost delivered = eventBus.postToTargetDelayed("delivered", target, 60);
+        assertTrue(timeout.cancel());
+
+        assertTrue(target.mLatch.await(2, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        assertEquals(1, target.mReceived.get());
+        assertFalse(delivered.isPending());
+    }
+}
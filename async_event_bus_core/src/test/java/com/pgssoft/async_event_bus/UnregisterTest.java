@@ -0,0 +1,71 @@
+package com.pgssoft.async_event_bus;
+
+import junit.framework.TestCase;
+
+public class UnregisterTest extends TestCase {
+
+    static class Target {
+        @Subscribe(EventBus.DeliveryThread.DISPATCHER)
+        void onString(String event) {
+        }
+
+        @Subscribe(EventBus.DeliveryThread.DISPATCHER)
+        void onInteger(Integer event) {
+        }
+    }
+
+    static class OtherTarget {
+        @Subscribe(EventBus.DeliveryThread.DISPATCHER)
+        void onString(String event) {
+        }
+    }
+
+    public void testUnregisterTouchesOwnTypesOnly() {
+        EventBus eventBus = new EventBus("test", null, new ThreadScheduler("test"));
+        Target target1 = new Target();
+        Target target2 = new Target();
+        OtherTarget other = new OtherTarget();
+        eventBus.register(target1);
+        eventBus.register(target2);
+        eventBus.register(other);
+        //registering twice does not duplicate subscribers
+        eventBus.register(target1);
+
+        assertEquals(3, eventBus.getSubscribersForEventType(String.class).length);
+        assertEquals(2, eventBus.getSubscribersForEventType(Integer.class).length);
+        assertEquals(3, eventBus.mRegisteredTargets.size());
+
+        eventBus.unregister(target1);
+        assertEquals(2, eventBus.getSubscribersForEventType(String.class).length);
+        assertEquals(1, eventBus.getSubscribersForEventType(Integer.class).length);
+        assertEquals(2, eventBus.mRegisteredTargets.size());
+
+        //not registered
+        eventBus.unregister(target1);
+        eventBus.unregister(new Object());
+        assertEquals(2, eventBus.mRegisteredTargets.size());
+
+        eventBus.unregister(target2);
+        eventBus.unregister(other);
+        assertEquals(0, eventBus.getSubscribersForEventType(String.class).length);
+        assertEquals(0, eventBus.getSubscribersForEventType(Integer.class).length);
+        assertTrue(eventBus.mCurrentlyRegisteredSubscribersByEventType.isEmpty());
+        assertTrue(eventBus.mRegisteredTargets.isEmpty());
+    }
+
+    public void testCollectedTargetsArePurged() throws Exception {
+        EventBus eventBus = new EventBus("test", null, new ThreadScheduler("test"));
+        OtherTarget other = new OtherTarget();
+        eventBus.register(other);
+        eventBus.register(new Target());
+
+        for (int i = 0; i < 50 && eventBus.mRegisteredTargets.size() > 1; i++) {
+            System.gc();
+            Thread.sleep(20);
+            eventBus.unregister(null);
+        }
+        assertEquals(1, eventBus.mRegisteredTargets.size());
+        assertEquals(1, eventBus.getSubscribersForEventType(String.class).length);
+        assertEquals(0, eventBus.getSubscribersForEventType(Integer.class).length);
+    }
+}
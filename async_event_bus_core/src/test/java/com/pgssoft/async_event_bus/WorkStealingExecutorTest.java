@@ -0,0 +1,213 @@
+package com.pgssoft.async_event_bus;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class WorkStealingExecutorTest extends TestCase {
+
+    public void testManyProducers() throws Exception {
+        final WorkStealingExecutor executor = new WorkStealingExecutor("test", 4);
+        final int tasks = 10000;
+        final CountDownLatch done = new CountDownLatch(4 * tasks);
+        final Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                done.countDown();
+            }
+        };
+        for (int p = 0; p < 4; p++) {
+            new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < tasks; i++) {
+                        executor.execute(task);
+                    }
+                }
+            }.start();
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Burst submitted from a non-worker thread is executed in order.
+     */
+    public void testSubmissionsAreFifo() throws Exception {
+        final WorkStealingExecutor executor = new WorkStealingExecutor("test", 1);
+        final List<Integer> order = Collections.synchronizedList(new ArrayList<Integer>());
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(10);
+
+        //keep the only worker busy, so the whole burst is queued
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 10; i++) {
+            final int index = i;
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    order.add(index);
+                    done.countDown();
+                }
+            });
+        }
+        release.countDown();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), order);
+    }
+
+    /**
+     * Runnable submitted from a worker, ex. a re-submitted Mailbox, waits behind runnables submitted before.
+     */
+    public void testSubmissionFromWorkerDoesNotOvertake() throws Exception {
+        final WorkStealingExecutor executor = new WorkStealingExecutor("test", 1);
+        final List<String> order = Collections.synchronizedList(new ArrayList<String>());
+        final CountDownLatch queued = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(2);
+        final Runnable record = new Runnable() {
+            @Override
+            public void run() {
+                order.add("external");
+                done.countDown();
+            }
+        };
+
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    queued.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        order.add("resubmitted");
+                        done.countDown();
+                    }
+                });
+            }
+        });
+        executor.execute(record);
+        queued.countDown();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("external", "resubmitted"), order);
+    }
+
+    /**
+     * Runnables forked by a worker go to its own deque, and idle workers steal them while it is busy.
+     */
+    public void testLocalDequeAndStealing() throws Exception {
+        final WorkStealingExecutor executor = new WorkStealingExecutor("test", 2);
+        final CountDownLatch done = new CountDownLatch(10);
+        final AtomicBoolean queuedLocally = new AtomicBoolean();
+        final Set<String> threads = Collections.synchronizedSet(new HashSet<String>());
+
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                WorkStealingExecutor.Worker self = (WorkStealingExecutor.Worker) Thread.currentThread();
+                final Runnable child = new Runnable() {
+                    @Override
+                    public void run() {
+                        threads.add(Thread.currentThread().getName());
+                        done.countDown();
+                    }
+                };
+                //lock the deque, so nothing is stolen before we count
+                synchronized (self.mDeque) {
+                    for (int i = 0; i < 10; i++) {
+                        executor.execute(child, self);
+                    }
+                    queuedLocally.set(self.mDeque.size() == 10);
+                }
+                //stay busy, the other worker have to steal
+                try {
+                    done.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(queuedLocally.get());
+        assertEquals(1, threads.size());
+    }
+
+    /**
+     * Workers above the core number are started when others are busy, and retire when idle.
+     */
+    public void testIdleWorkersRetire() throws Exception {
+        final WorkStealingExecutor executor = new WorkStealingExecutor("test", 1, 3, 100, TimeUnit.MILLISECONDS);
+        assertNotNull(executor.mWorkers.get(0));
+        assertNull(executor.mWorkers.get(1));
+
+        final CountDownLatch started = new CountDownLatch(3);
+        final CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < 3; i++) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    started.countDown();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            });
+        }
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        release.countDown();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while ((executor.mWorkers.get(1) != null || executor.mWorkers.get(2) != null) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertNotNull(executor.mWorkers.get(0));
+        assertNull(executor.mWorkers.get(1));
+        assertNull(executor.mWorkers.get(2));
+
+        //retired workers do not lose runnables submitted meanwhile
+        final int tasks = 10000;
+        final CountDownLatch done = new CountDownLatch(tasks);
+        for (int i = 0; i < tasks; i++) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    done.countDown();
+                }
+            });
+            if (i % 1000 == 0) Thread.sleep(150);
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+    }
+
+    public void testEventBusUsesWorkStealingByDefault() {
+        EventBus eventBus = new EventBus("test", null, new ThreadScheduler("test"));
+        assertTrue(eventBus.mBackgroundExecutor instanceof WorkStealingExecutor);
+    }
+}
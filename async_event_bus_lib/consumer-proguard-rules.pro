@@ -0,0 +1,13 @@
+# ProGuard rules applied to apps using the async_event_bus_lib.
+
+# EventBus finds the Android Scheduler by name, see EventBus.createDefaultScheduler().
+-keep class com.pgssoft.async_event_bus.HandlerScheduler {
+    public <init>(java.lang.String);
+}
+
+# Subscriber methods are found by the @Subscribe annotation, and called by reflection,
+# unless the class is in the compile-time subscriber index.
+-keepattributes *Annotation*
+-keepclassmembers class * {
+    @com.pgssoft.async_event_bus.Subscribe <methods>;
+}
@@ -0,0 +1,179 @@
+package com.pgssoft.async_event_bus;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The {@link Scheduler} for Android, based on {@link Handler}s.
+ * <p/>
+ * Dispatcher is a lane of the {@link #getSharedPool()} pool, or the executor passed to the constructor,
+ * or own {@link HandlerThread}. Both the shared lanes and own HandlerThread run with background priority. The UI executor posts to
+ * the main Looper, and objects with DeliveryThread.AS_REGISTERED subscribers are served by the Looper of thread
+ * that registered them.
+ * <p/>
+ * This is the default Scheduler of every {@link EventBus} created on Android.
+ */
+public class HandlerScheduler implements Scheduler {
+    static final String TAG = "EventBus.HandlerScheduler";
+
+    /**
+     * Creates a new HandlerScheduler, with dispatcher in the shared pool.
+     *
+     * @param name @NonNull prefix for the dispatcher thread name, for debugging purposes.
+     */
+    public HandlerScheduler(@NonNull String name) {
+        this(name, getSharedPool().nextLane());
+    }
+
+    /**
+     * Get the pool shared by all HandlerSchedulers created without the dispatcher executor.
+     * It have one lane per available processor, lanes run with background priority, so they do not compete
+     * with the UI thread.
+     */
+    @NonNull
+    public static synchronized DispatcherPool getSharedPool() {
+        if (mSharedPool == null) {
+            mSharedPool = new DispatcherPool(Runtime.getRuntime().availableProcessors(),
+                    new BackgroundThreadFactory("EventBus.Dispatcher"));
+        }
+        return mSharedPool;
+    }
+
+    /**
+     * Creates a new HandlerScheduler.
+     *
+     * @param name               @NonNull prefix for the dispatcher thread name, for debugging purposes.
+     * @param dispatcherExecutor @Nullable executor of the dispatcher thread, ex. {@link DispatcherPool#nextLane()}.
+     *                           It must execute runnables in order, one by one. Pass null to start own HandlerThread.
+     */
+    public HandlerScheduler(@NonNull String name, @Nullable Executor dispatcherExecutor) {
+        if (dispatcherExecutor != null) {
+            mDispatcherExecutor = dispatcherExecutor;
+        } else {
+            HandlerThread thread = new HandlerThread(name + ".dispatcher", android.os.Process.THREAD_PRIORITY_BACKGROUND);
+            thread.start();
+            //getLooper() waits until the Looper is prepared
+            mDispatcherExecutor = new HandlerExecutor(new Handler(thread.getLooper()));
+        }
+    }
+
+    @NonNull
+    @Override
+    public Executor getDispatcherExecutor() {
+        return mDispatcherExecutor;
+    }
+
+    @NonNull
+    @Override
+    public Executor getUiExecutor() {
+        return mUiThreadExecutor;
+    }
+
+    @Override
+    public void assignThreadForTarget(@NonNull Object target) {
+        Looper looper = Looper.myLooper();
+        if (looper != null)
+            synchronized (mTargetsLoopers) {
+                //assign Looper for object
+                mTargetsLoopers.put(target, new WeakReference<Looper>(looper));
+                //create Handler for Looper, if it is not created yet.
+                if (mLoopersExecutors.get(looper) == null) {
+                    mLoopersExecutors.put(looper,
+                            looper != Looper.getMainLooper()
+                                    ? new HandlerExecutor(new Handler(looper)) : mUiThreadExecutor);
+                }
+            }
+    }
+
+    @Nullable
+    @Override
+    public Executor getExecutorForTarget(@NonNull Object target) {
+        synchronized (mTargetsLoopers) {
+            WeakReference<Looper> ref = mTargetsLoopers.get(target);
+            if (ref != null) {
+                Executor result = mLoopersExecutors.get(ref.get());
+                if (result != null) return result;
+            }
+        }
+        Log.e(TAG, "The subscriber requested AS_REGISTERED thread, but thread which registered this subscriber had not associated Looper at the time when register() was called.");
+        return null;
+    }
+
+    //////////////////////////////////////////////////////////////////////////////////////////
+    // implementation
+
+    /**
+     * The UI thread executor.
+     * Object shared by all Bus instances, there is just one main thread anyway ;-).
+     */
+    static final Executor mUiThreadExecutor = new HandlerExecutor(new Handler(Looper.getMainLooper()));
+
+    @NonNull
+    final Executor mDispatcherExecutor;
+
+    static DispatcherPool mSharedPool;
+
+    /**
+     * target-to-looper map.
+     */
+    final static Map<Object, WeakReference<Looper>> mTargetsLoopers = new WeakHashMap<Object, WeakReference<Looper>>();
+
+    /**
+     * looper-to-executor map.
+     */
+    final static Map<Looper, Executor> mLoopersExecutors = new WeakHashMap<Looper, Executor>();
+
+    /**
+     * Creates numbered daemon threads, running with background priority.
+     */
+    static class BackgroundThreadFactory implements ThreadFactory {
+        final String mName;
+        final AtomicInteger mCount = new AtomicInteger();
+
+        BackgroundThreadFactory(@NonNull String name) {
+            mName = name;
+        }
+
+        @Override
+        public Thread newThread(@NonNull final Runnable r) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    //priority of the Linux thread can be set only from the thread itself
+                    android.os.Process.setThreadPriority(android.os.Process.THREAD_PRIORITY_BACKGROUND);
+                    r.run();
+                }
+            }, mName + " #" + mCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    /**
+     * Executor posting runnables to the Handler.
+     */
+    static class HandlerExecutor implements Executor {
+        @NonNull
+        final Handler mHandler;
+
+        HandlerExecutor(@NonNull Handler handler) {
+            mHandler = handler;
+        }
+
+        @Override
+        public void execute(@NonNull Runnable command) {
+            mHandler.post(command);
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package com.pgssoft.async_event_bus.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Annotation processor generating the {@link com.pgssoft.async_event_bus.SubscriberIndex} for all classes
+ * with methods annotated with {@link com.pgssoft.async_event_bus.Subscribe}.
+ * <p/>
+ * The fully qualified name of the generated index class must be passed as the {@value #OPTION_INDEX}
+ * processor option. Nothing is generated if the option is not set.
+ * <p/>
+ * The generated index calls subscriber methods directly, without reflection. Because of this, a class can be
+ * indexed only if all its subscriber methods are accessible from the index package (ex. are not private).
+ * Classes that can not be indexed are skipped, and the bus will scan them using reflection, as usual.
+ * <p/>
+ * Note: processor works on type names, it have no dependency on the bus library.
+ */
+public class SubscriberIndexProcessor extends AbstractProcessor {
+
+    public static final String OPTION_INDEX = "asyncEventBusIndex";
+
+    static final String SUBSCRIBE = "com.pgssoft.async_event_bus.Subscribe";
+    static final String BUS_PACKAGE = "com.pgssoft.async_event_bus";
+    static final String DEFAULT_THREAD = "AS_REGISTERED";
+    static final String DEFAULT_OVERFLOW = "DROP_NEWEST";
+    static final String DEFAULT_OVERFLOW_TIMEOUT = "100L";
+
+    /**
+     * All found subscriber methods, grouped by the declaring class.
+     * Linked map, to generate the same source for the same input.
+     */
+    final Map<TypeElement, List<ExecutableElement>> mMethodsByClass = new LinkedHashMap<TypeElement, List<ExecutableElement>>();
+
+    boolean mIndexWritten = false;
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton(SUBSCRIBE);
+    }
+
+    @Override
+    public Set<String> getSupportedOptions() {
+        return Collections.singleton(OPTION_INDEX);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        Messager messager = processingEnv.getMessager();
+        if (annotations.isEmpty()) return false;
+
+        String indexName = processingEnv.getOptions().get(OPTION_INDEX);
+        if (indexName == null) {
+            messager.printMessage(Diagnostic.Kind.NOTE, "No " + OPTION_INDEX + " option, subscriber index will not be generated.");
+            return false;
+        }
+
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() != ElementKind.METHOD) continue;
+                ExecutableElement method = (ExecutableElement) element;
+
+                //fail fast, same as the bus would do in runtime
+                if (method.getParameters().size() != 1) {
+                    messager.printMessage(Diagnostic.Kind.ERROR, "Method has @Subscribe annotation but requires "
+                            + method.getParameters().size() + " arguments.  Methods must require a single argument.", method);
+                    continue;
+                }
+
+                TypeElement declaringClass = (TypeElement) method.getEnclosingElement();
+                List<ExecutableElement> methods = mMethodsByClass.get(declaringClass);
+                if (methods == null) {
+                    methods = new ArrayList<ExecutableElement>();
+                    mMethodsByClass.put(declaringClass, methods);
+                }
+                methods.add(method);
+            }
+        }
+
+        if (mIndexWritten) {
+            if (!mMethodsByClass.isEmpty()) {
+                messager.printMessage(Diagnostic.Kind.WARNING, "Subscribers found in generated sources, they will not be indexed.");
+                mMethodsByClass.clear();
+            }
+        } else if (!mMethodsByClass.isEmpty()) {
+            writeIndex(indexName);
+            mIndexWritten = true;
+        }
+        return false;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////
+    //implementation
+
+    void writeIndex(String indexName) {
+        int dot = indexName.lastIndexOf('.');
+        String indexPackage = dot > 0 ? indexName.substring(0, dot) : "";
+        String indexSimpleName = indexName.substring(dot + 1);
+
+        //filter out classes that can't be called directly from the index
+        List<TypeElement> classes = new ArrayList<TypeElement>();
+        for (Map.Entry<TypeElement, List<ExecutableElement>> entry : mMethodsByClass.entrySet()) {
+            if (isIndexable(entry.getKey(), entry.getValue(), indexPackage)) {
+                classes.add(entry.getKey());
+            } else {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, "Subscriber methods are not accessible from "
+                        + indexName + ", class will be scanned in runtime.", entry.getKey());
+            }
+        }
+
+        StringBuilder methodsSource = new StringBuilder();
+        StringBuilder invokersSource = new StringBuilder();
+        int id = 0;
+        for (TypeElement clazz : classes) {
+            String className = processingEnv.getTypeUtils().erasure(clazz.asType()).toString();
+            methodsSource.append("        mIndex.put(").append(className).append(".class, new SubscriberMethodInfo[]{\n");
+            for (ExecutableElement method : mMethodsByClass.get(clazz)) {
+                TypeMirror eventType = processingEnv.getTypeUtils().erasure(method.getParameters().get(0).asType());
+                String methodName = method.getSimpleName().toString();
+                methodsSource.append("                new SubscriberMethodInfo(\"").append(methodName).append("\", ")
+                        .append(eventType).append(".class, EventBus.DeliveryThread.").append(getEnumValue(method, "value", DEFAULT_THREAD))
+                        .append(", ").append(getAnnotationValue(method, "conflate", "false"))
+                        .append(", ").append(getAnnotationValue(method, "capacity", "0"))
+                        .append(", EventBus.OverflowPolicy.").append(getEnumValue(method, "overflow", DEFAULT_OVERFLOW))
+                        .append(", ").append(getAnnotationValue(method, "overflowTimeout", DEFAULT_OVERFLOW_TIMEOUT))
+                        .append(", ").append(getAnnotationValue(method, "debounce", "0L"))
+                        .append(", ").append(getAnnotationValue(method, "throttle", "0L"))
+                        .append(",\n                        new Invoker(").append(id).append(")),\n");
+
+                invokersSource.append("                case ").append(id).append(": {\n")
+                        .append("                    ").append(className).append(" typedTarget = (").append(className).append(") target;\n")
+                        .append("                    ").append(boxed(eventType)).append(" typedEvent = (").append(boxed(eventType)).append(") event;\n")
+                        .append("                    try {\n")
+                        .append("                        typedTarget.").append(methodName).append("(typedEvent);\n")
+                        .append("                    } catch (Throwable e) {\n")
+                        .append("                        throw new InvocationTargetException(e);\n")
+                        .append("                    }\n")
+                        .append("                    return;\n")
+                        .append("                }\n");
+                id++;
+            }
+            methodsSource.append("        });\n");
+        }
+
+        StringBuilder source = new StringBuilder();
+        if (indexPackage.length() > 0) {
+            source.append("package ").append(indexPackage).append(";\n\n");
+        }
+        source.append("import ").append(BUS_PACKAGE).append(".EventBus;\n")
+                .append("import ").append(BUS_PACKAGE).append(".SubscriberIndex;\n")
+                .append("import ").append(BUS_PACKAGE).append(".SubscriberInvoker;\n")
+                .append("import ").append(BUS_PACKAGE).append(".SubscriberMethodInfo;\n\n")
+                .append("import java.lang.reflect.InvocationTargetException;\n")
+                .append("import java.util.HashMap;\n")
+                .append("import java.util.Map;\n\n")
+                .append("/**\n")
+                .append(" * Subscriber index generated by the ").append(getClass().getName()).append(".\n")
+                .append(" * Do not edit.\n")
+                .append(" */\n")
+                .append("@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n")
+                .append("public final class ").append(indexSimpleName).append(" implements SubscriberIndex {\n\n")
+                .append("    private final Map<Class<?>, SubscriberMethodInfo[]> mIndex = new HashMap<Class<?>, SubscriberMethodInfo[]>();\n\n")
+                .append("    public ").append(indexSimpleName).append("() {\n")
+                .append(methodsSource)
+                .append("    }\n\n")
+                .append("    @Override\n")
+                .append("    public SubscriberMethodInfo[] getSubscriberMethods(Class<?> targetClass) {\n")
+                .append("        return mIndex.get(targetClass);\n")
+                .append("    }\n\n")
+                .append("    private static final class Invoker implements SubscriberInvoker {\n")
+                .append("        private final int mId;\n\n")
+                .append("        Invoker(int id) {\n")
+                .append("            mId = id;\n")
+                .append("        }\n\n")
+                .append("        @Override\n")
+                .append("        public void invoke(Object target, Object event) throws Exception {\n")
+                .append("            switch (mId) {\n")
+                .append(invokersSource)
+                .append("            }\n")
+                .append("            throw new IllegalStateException(\"Unknown subscriber method id \" + mId);\n")
+                .append("        }\n")
+                .append("    }\n")
+                .append("}\n");
+
+        Writer writer = null;
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(indexName,
+                    classes.toArray(new Element[classes.size()]));
+            writer = file.openWriter();
+            writer.write(source.toString());
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Can not write " + indexName + ": " + e);
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException ignore) {
+                }
+            }
+        }
+    }
+
+    /**
+     * Check if all subscriber methods of given class can be called directly from the index package.
+     */
+    boolean isIndexable(TypeElement clazz, List<ExecutableElement> methods, String indexPackage) {
+        if (!isTypeAccessible(clazz, indexPackage)) return false;
+        for (ExecutableElement method : methods) {
+            Set<Modifier> modifiers = method.getModifiers();
+            if (modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.STATIC)) return false;
+            if (!modifiers.contains(Modifier.PUBLIC) && !getPackageName(clazz).equals(indexPackage)) return false;
+
+            TypeMirror eventType = processingEnv.getTypeUtils().erasure(method.getParameters().get(0).asType());
+            while (eventType.getKind() == TypeKind.ARRAY) {
+                eventType = ((ArrayType) eventType).getComponentType();
+            }
+            if (eventType.getKind() == TypeKind.DECLARED
+                    && !isTypeAccessible((TypeElement) ((DeclaredType) eventType).asElement(), indexPackage)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check if given type, and all types enclosing it, are accessible from the index package.
+     */
+    boolean isTypeAccessible(TypeElement type, String indexPackage) {
+        for (Element element = type; element instanceof TypeElement; element = element.getEnclosingElement()) {
+            TypeElement typeElement = (TypeElement) element;
+            if (typeElement.getNestingKind() != NestingKind.TOP_LEVEL
+                    && typeElement.getNestingKind() != NestingKind.MEMBER) return false;
+
+            Set<Modifier> modifiers = typeElement.getModifiers();
+            if (modifiers.contains(Modifier.PRIVATE)) return false;
+            if (!modifiers.contains(Modifier.PUBLIC) && !getPackageName(typeElement).equals(indexPackage)) return false;
+        }
+        return true;
+    }
+
+    String getPackageName(Element element) {
+        PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(element);
+        return packageElement.getQualifiedName().toString();
+    }
+
+    /**
+     * Name of the type that can be used for cast from Object.
+     */
+    String boxed(TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return processingEnv.getTypeUtils().boxedClass((PrimitiveType) type).getQualifiedName().toString();
+        }
+        return type.toString();
+    }
+
+    /**
+     * Read the enum constant name from @Subscribe annotation attribute, without loading the annotation class.
+     */
+    static String getEnumValue(ExecutableElement method, String name, String defaultValue) {
+        AnnotationValue value = getAnnotationValue(method, name);
+        if (value == null) return defaultValue;
+        return ((VariableElement) value.getValue()).getSimpleName().toString();
+    }
+
+    /**
+     * Read the @Subscribe annotation attribute value as source code.
+     */
+    static String getAnnotationValue(ExecutableElement method, String name, String defaultValue) {
+        AnnotationValue value = getAnnotationValue(method, name);
+        return value == null ? defaultValue : value.toString();
+    }
+
+    /**
+     * Read the @Subscribe annotation attribute value, explicitly set in the source.
+     *
+     * @return the value, or null if it is not set.
+     */
+    static AnnotationValue getAnnotationValue(ExecutableElement method, String name) {
+        for (AnnotationMirror annotation : method.getAnnotationMirrors()) {
+            if (!SUBSCRIBE.equals(annotation.getAnnotationType().toString())) continue;
+
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : annotation.getElementValues().entrySet()) {
+                if (entry.getKey().getSimpleName().contentEquals(name)) {
+                    return entry.getValue();
+                }
+            }
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,152 @@
+package com.pgssoft.async_event_bus.processor;
+
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.JavaFileObjects;
+import com.pgssoft.async_event_bus.EventBus;
+import com.pgssoft.async_event_bus.SubscriberIndex;
+import com.pgssoft.async_event_bus.SubscriberMethodInfo;
+import com.pgssoft.async_event_bus.ThreadScheduler;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+
+import static com.google.testing.compile.CompilationSubject.assertThat;
+import static com.google.testing.compile.Compiler.javac;
+
+public class SubscriberIndexProcessorTest extends TestCase {
+
+    static final String INDEX = "com.example.TestIndex";
+
+    static final JavaFileObject INDEXED_TARGET = JavaFileObjects.forSourceLines("com.example.IndexedTarget",
+            "package com.example;",
+            "",
+            "import com.pgssoft.async_event_bus.EventBus;",
+            "import com.pgssoft.async_event_bus.Subscribe;",
+            "",
+            "public class IndexedTarget {",
+            "    public String caller;",
+            "    public int count;",
+            "",
+            "    @Subscribe(EventBus.DeliveryThread.DISPATCHER)",
+            "    public void onString(String event) {",
+            "        caller = new Throwable().getStackTrace()[1].getClassName();",
+            "        count++;",
+            "    }",
+            "",
+            "    @Subscribe(value = EventBus.DeliveryThread.BACKGROUND, capacity = 8)",
+            "    void onInteger(int event) {",
+            "    }",
+            "}");
+
+    static final JavaFileObject HIDDEN_TARGET = JavaFileObjects.forSourceLines("com.example.HiddenTarget",
+            "package com.example;",
+            "",
+            "import com.pgssoft.async_event_bus.EventBus;",
+            "import com.pgssoft.async_event_bus.Subscribe;",
+            "",
+            "public class HiddenTarget {",
+            "    @Subscribe(EventBus.DeliveryThread.DISPATCHER)",
+            "    private void onString(String event) {",
+            "    }",
+            "}");
+
+    static Compilation compile() {
+        return javac()
+                .withProcessors(new SubscriberIndexProcessor())
+                .withOptions("-A" + SubscriberIndexProcessor.OPTION_INDEX + "=" + INDEX)
+                .compile(INDEXED_TARGET, HIDDEN_TARGET);
+    }
+
+    public void testGeneratedIndex() throws Exception {
+        Compilation compilation = compile();
+        assertThat(compilation).succeeded();
+        //private subscriber method can not be called from the index, class is left for the reflection scan
+        assertThat(compilation).hadNoteContaining("class will be scanned in runtime");
+
+        String source = compilation.generatedSourceFile(INDEX).get().getCharContent(true).toString();
+        assertTrue(source.contains("public final class TestIndex implements SubscriberIndex"));
+        assertTrue(source.contains("mIndex.put(com.example.IndexedTarget.class"));
+        assertTrue(source.contains("new SubscriberMethodInfo(\"onString\", java.lang.String.class, "
+                + "EventBus.DeliveryThread.DISPATCHER, false, 0, EventBus.OverflowPolicy.DROP_NEWEST, 100L, 0L, 0L"));
+        assertTrue(source.contains("new SubscriberMethodInfo(\"onInteger\", int.class, "
+                + "EventBus.DeliveryThread.BACKGROUND, false, 8, EventBus.OverflowPolicy.DROP_NEWEST, 100L, 0L, 0L"));
+        assertTrue(source.contains("java.lang.Integer typedEvent = (java.lang.Integer) event;"));
+        assertFalse(source.contains("HiddenTarget"));
+    }
+
+    public void testNoIndexWithoutOption() {
+        Compilation compilation = javac()
+                .withProcessors(new SubscriberIndexProcessor())
+                .compile(INDEXED_TARGET);
+        assertThat(compilation).succeeded();
+        assertThat(compilation).hadNoteContaining("subscriber index will not be generated");
+        assertFalse(compilation.generatedSourceFile(INDEX).isPresent());
+    }
+
+    public void testDeliveryThroughIndex() throws Exception {
+        Compilation compilation = compile();
+        assertThat(compilation).succeeded();
+        ClassLoader loader = new CompilationClassLoader(compilation, getClass().getClassLoader());
+        Class<?> targetClass = loader.loadClass("com.example.IndexedTarget");
+        SubscriberIndex index = (SubscriberIndex) loader.loadClass(INDEX).getConstructor().newInstance();
+        assertNull(index.getSubscriberMethods(loader.loadClass("com.example.HiddenTarget")));
+        SubscriberMethodInfo[] methods = index.getSubscriberMethods(targetClass);
+        assertNotNull(methods);
+        assertEquals(2, methods.length);
+
+        EventBus.addIndex(index);
+        EventBus eventBus = new EventBus("test", null, new ThreadScheduler("test"));
+        Object target = targetClass.getConstructor().newInstance();
+        eventBus.register(target);
+        eventBus.send("a");
+
+        assertEquals(1, targetClass.getField("count").getInt(target));
+        //called directly by the generated invoker, not by reflection
+        assertEquals(INDEX + "$Invoker", targetClass.getField("caller").get(target));
+    }
+
+    /**
+     * Loads classes compiled in memory.
+     */
+    static class CompilationClassLoader extends ClassLoader {
+        final Compilation mCompilation;
+
+        CompilationClassLoader(Compilation compilation, ClassLoader parent) {
+            super(parent);
+            mCompilation = compilation;
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            String path = name.replace('.', '/') + ".class";
+            if (!mCompilation.generatedFile(StandardLocation.CLASS_OUTPUT, path).isPresent()) {
+                throw new ClassNotFoundException(name);
+            }
+            try {
+                byte[] bytes = read(mCompilation.generatedFile(StandardLocation.CLASS_OUTPUT, path).get().openInputStream());
+                return defineClass(name, bytes, 0, bytes.length);
+            } catch (IOException e) {
+                throw new ClassNotFoundException(name, e);
+            }
+        }
+
+        static byte[] read(InputStream input) throws IOException {
+            try {
+                ByteArrayOutputStream result = new ByteArrayOutputStream();
+                byte[] buffer = new byte[4096];
+                for (int read; (read = input.read(buffer)) > 0; ) {
+                    result.write(buffer, 0, read);
+                }
+                return result.toByteArray();
+            } finally {
+                input.close();
+            }
+        }
+    }
+}